@@ -0,0 +1,179 @@
+package com.jangelmm.dataforge.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * ForgeTask is a unit of divide-and-conquer work run by a {@link ForgeWorkPool}.
+ * <p>
+ * Subclasses implement {@link #compute()}, typically by splitting the problem, forking one
+ * half, computing the other half directly and joining the forked one:
+ * <pre>
+ * protected Long compute() {
+ *     if (high - low &lt;= THRESHOLD) {
+ *         return sequentialSum(low, high);
+ *     }
+ *     int middle = (low + high) &gt;&gt;&gt; 1;
+ *     SumTask left = new SumTask(low, middle);
+ *     left.fork();
+ *     long right = new SumTask(middle, high).invoke();
+ *     return left.join() + right;
+ * }
+ * </pre>
+ * A worker that joins a task that is not done yet does not block: it keeps running tasks from
+ * its own deque and steals from other workers until the joined task completes.
+ *
+ * @param <R> the type of the result
+ */
+public abstract class ForgeTask<R> {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(ForgeTask.class, "status", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile int status;
+    private volatile boolean waiting;
+    private R result;
+    private Throwable exception;
+
+    /**
+     * Performs the work of the task.
+     *
+     * @return the result of the task
+     */
+    protected abstract R compute();
+
+    /**
+     * Schedules the task to run asynchronously on the deque of the current worker, where
+     * idle workers can steal it.
+     *
+     * @return this task
+     * @throws IllegalStateException if the current thread is not a worker of a ForgeWorkPool
+     */
+    public final ForgeTask<R> fork() {
+        ForgeWorkPool.Worker worker = ForgeWorkPool.currentWorker();
+        if (worker == null) {
+            throw new IllegalStateException("fork() must be called from a ForgeWorkPool worker");
+        }
+        worker.push(this);
+        return this;
+    }
+
+    /**
+     * Waits for the task to complete and returns its result. A worker helps run other tasks
+     * while it waits; any other thread blocks.
+     *
+     * @return the result of the task
+     * @throws RuntimeException if the computation threw an exception
+     */
+    public final R join() {
+        if (status != DONE) {
+            ForgeWorkPool.Worker worker = ForgeWorkPool.currentWorker();
+            if (worker != null) {
+                worker.helpUntilDone(this);
+            } else {
+                awaitDone();
+            }
+        }
+        return reportResult();
+    }
+
+    /**
+     * Runs the task in the current thread and returns its result. If another thread already
+     * started the task, waits for it as {@link #join()} does.
+     *
+     * @return the result of the task
+     * @throws RuntimeException if the computation threw an exception
+     */
+    public final R invoke() {
+        run();
+        return join();
+    }
+
+    /**
+     * Forks the first task, computes the second in the current thread and joins the first.
+     *
+     * @param first  the task that is forked
+     * @param second the task that runs in the current thread
+     * @throws IllegalStateException if the current thread is not a worker of a ForgeWorkPool
+     */
+    public static void invokeAll(ForgeTask<?> first, ForgeTask<?> second) {
+        first.fork();
+        second.invoke();
+        first.join();
+    }
+
+    /**
+     * Checks if the task completed, normally or with an exception.
+     *
+     * @return true if the task is done, false otherwise
+     */
+    public final boolean isDone() {
+        return status == DONE;
+    }
+
+    /**
+     * Runs the computation and records its outcome, unless another thread already claimed
+     * the task. A task can be reached both from its owner and from a thief, so execution is
+     * claimed with a CAS from NEW to RUNNING and compute() runs at most once.
+     */
+    final void run() {
+        if (!STATUS.compareAndSet(this, NEW, RUNNING)) {
+            return;
+        }
+        try {
+            result = compute();
+        } catch (Throwable e) {
+            exception = e;
+        }
+        status = DONE;
+        if (waiting) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Blocks a thread that is not a worker until the task completes.
+     */
+    private void awaitDone() {
+        boolean interrupted = false;
+        synchronized (this) {
+            waiting = true;
+            while (status != DONE) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private R reportResult() {
+        Throwable e = exception;
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e != null) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,265 @@
+package com.jangelmm.dataforge.concurrent;
+
+import com.jangelmm.dataforge.list.ForgeStealingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ForgeWorkPool is a small fork-join scheduler. Every worker thread owns a
+ * {@link ForgeStealingDeque}: tasks forked by a worker are pushed on its own deque and popped
+ * in LIFO order, which keeps the working set small, while idle workers steal the oldest, and
+ * usually largest, tasks of other workers from the top.
+ * <p>
+ * Tasks submitted from outside the pool wait on a shared queue until a worker picks them up.
+ * Idle workers spin briefly and then park until new work is forked or submitted.
+ * Workers are daemon threads; call {@link #shutdown()} to stop them.
+ */
+public class ForgeWorkPool {
+
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long PARK_NANOS = 1_000_000L;
+
+    private final Worker[] workers;
+    private final ConcurrentLinkedQueue<ForgeTask<?>> submissions;
+    private final AtomicInteger idleWorkers;
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a pool with one worker per available processor.
+     */
+    public ForgeWorkPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a pool and starts its workers.
+     *
+     * @param parallelism the number of worker threads
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public ForgeWorkPool(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        submissions = new ConcurrentLinkedQueue<>();
+        idleWorkers = new AtomicInteger();
+        workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(this, i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Submits a task to run asynchronously. Use {@link ForgeTask#join()} to wait for it.
+     * A task submitted from a worker of this pool is forked on the deque of that worker.
+     *
+     * @param task the task to run
+     * @param <R>  the type of the result
+     * @return the submitted task
+     * @throws IllegalStateException if the pool was shut down
+     */
+    public <R> ForgeTask<R> submit(ForgeTask<R> task) {
+        if (shutdown) {
+            throw new IllegalStateException("The pool was shut down");
+        }
+        Worker worker = currentWorker();
+        if (worker != null && worker.pool == this) {
+            worker.push(task);
+        } else {
+            submissions.offer(task);
+            signalWork();
+        }
+        return task;
+    }
+
+    /**
+     * Runs a task on the pool and waits for its result.
+     *
+     * @param task the task to run
+     * @param <R>  the type of the result
+     * @return the result of the task
+     * @throws IllegalStateException if the pool was shut down
+     * @throws RuntimeException      if the computation threw an exception
+     */
+    public <R> R invoke(ForgeTask<R> task) {
+        return submit(task).join();
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return workers.length;
+    }
+
+    /**
+     * Stops accepting tasks and lets the workers exit once they run out of work.
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Checks if {@link #shutdown()} was called.
+     *
+     * @return true if the pool was shut down, false otherwise
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Returns the worker running the current thread, if any.
+     */
+    static Worker currentWorker() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof Worker ? (Worker) thread : null;
+    }
+
+    /**
+     * Wakes a parked worker, if there is one, because new work is available.
+     */
+    private void signalWork() {
+        if (idleWorkers.get() == 0) {
+            return;
+        }
+        for (Worker worker : workers) {
+            if (worker.parked) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    /**
+     * A worker thread with its own work-stealing deque.
+     */
+    static final class Worker extends Thread {
+        private final ForgeWorkPool pool;
+        private final ForgeStealingDeque<ForgeTask<?>> deque;
+        private volatile boolean parked;
+        private int seed;
+
+        Worker(ForgeWorkPool pool, int index) {
+            super("ForgeWorkPool-worker-" + index);
+            this.pool = pool;
+            this.deque = new ForgeStealingDeque<>();
+            this.seed = index * 0x9E3779B9 + 1;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idleSpins = 0;
+            while (true) {
+                ForgeTask<?> task = nextTask();
+                if (task != null) {
+                    task.run();
+                    idleSpins = 0;
+                } else if (pool.shutdown) {
+                    return;
+                } else if (++idleSpins < SPINS_BEFORE_PARK) {
+                    Thread.yield();
+                } else {
+                    park();
+                }
+            }
+        }
+
+        /**
+         * Pushes a forked task on the deque of this worker.
+         */
+        void push(ForgeTask<?> task) {
+            deque.push(task);
+            pool.signalWork();
+        }
+
+        /**
+         * Runs local, submitted and stolen tasks until the joined task completes.
+         */
+        void helpUntilDone(ForgeTask<?> joined) {
+            int idleSpins = 0;
+            while (!joined.isDone()) {
+                ForgeTask<?> task = nextTask();
+                if (task != null) {
+                    task.run();
+                    idleSpins = 0;
+                } else if (++idleSpins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * Takes a task from the own deque, then the submission queue, then another worker.
+         */
+        private ForgeTask<?> nextTask() {
+            ForgeTask<?> task = deque.pop();
+            if (task == null) {
+                task = pool.submissions.poll();
+            }
+            if (task == null) {
+                task = steal();
+            }
+            return task;
+        }
+
+        /**
+         * Tries to steal from every other worker, starting at a random victim.
+         */
+        private ForgeTask<?> steal() {
+            Worker[] workers = pool.workers;
+            int count = workers.length;
+            if (count == 1) {
+                return null;
+            }
+            seed ^= seed << 13; // Xorshift to pick the first victim
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            int start = (seed & Integer.MAX_VALUE) % count;
+            for (int i = 0; i < count; i++) {
+                Worker victim = workers[(start + i) % count];
+                if (victim != this) {
+                    ForgeTask<?> task = victim.deque.steal();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Parks until new work is signalled, rechecking for work after announcing itself idle.
+         */
+        private void park() {
+            parked = true;
+            pool.idleWorkers.incrementAndGet();
+            if (pool.submissions.isEmpty() && !anyWorkVisible() && !pool.shutdown) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            pool.idleWorkers.decrementAndGet();
+            parked = false;
+        }
+
+        private boolean anyWorkVisible() {
+            for (Worker worker : pool.workers) {
+                if (!worker.deque.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ForgeBoundedSequence is a bounded variant of {@link ForgeSequence} that keeps only the
+ * K smallest (or K largest) elements seen so far.
+ * The retained elements live in an array-based binary heap whose root is the current boundary,
+ * so an element that cannot qualify is rejected in O(1) and an accepted one costs O(log K).
+ *
+ * @param <T> the type of elements in this sequence
+ */
+public class ForgeBoundedSequence<T extends Comparable<T>> {
+
+    private final Object[] heap;
+    private final boolean keepLargest;
+    private int size;
+
+    /**
+     * Constructs an empty ForgeBoundedSequence that keeps the smallest elements.
+     *
+     * @param capacity the maximum number of elements to keep
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ForgeBoundedSequence(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructs an empty ForgeBoundedSequence.
+     *
+     * @param capacity    the maximum number of elements to keep
+     * @param keepLargest true to keep the largest elements, false to keep the smallest ones
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ForgeBoundedSequence(int capacity, boolean keepLargest) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.heap = new Object[capacity];
+        this.keepLargest = keepLargest;
+        this.size = 0;
+    }
+
+    /**
+     * Offers an element to the sequence.
+     * Once the sequence is full, the element is accepted only if it beats the current boundary,
+     * in which case the boundary is evicted.
+     *
+     * @param element the element to be offered
+     * @return true if the element was kept, false if it was null or did not qualify
+     */
+    public boolean insert(T element) {
+        if (element == null) {
+            return false;
+        }
+        if (size < heap.length) {
+            heap[size] = element;
+            siftUp(size++);
+            return true;
+        }
+        if (!before(element, elementAt(0))) {  // Does not beat the boundary
+            return false;
+        }
+        heap[0] = element;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Returns the boundary element, that is, the worst element still kept
+     * (the largest one when keeping the smallest elements, and vice versa).
+     *
+     * @return the boundary element, or null if the sequence is empty
+     */
+    public T peekBoundary() {
+        return size == 0 ? null : elementAt(0);
+    }
+
+    /**
+     * Removes and returns the boundary element.
+     *
+     * @return the boundary element, or null if the sequence is empty
+     */
+    public T removeBoundary() {
+        if (size == 0) {
+            return null;
+        }
+        T element = elementAt(0);
+        heap[0] = heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            siftDown(0);
+        }
+        return element;
+    }
+
+    /**
+     * Returns the kept elements sorted from best to worst
+     * (ascending when keeping the smallest elements, descending otherwise).
+     * The sequence itself is left unchanged.
+     *
+     * @return a new list with the kept elements in order
+     */
+    public List<T> toSortedList() {
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(elementAt(i));
+        }
+        Collections.sort(result);
+        if (keepLargest) {
+            Collections.reverse(result);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if an element is currently kept in the sequence.
+     *
+     * @param element the element to search for
+     * @return true if the element is found, false otherwise
+     */
+    public boolean contains(T element) {
+        if (element == null) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (heap[i].equals(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prints the kept elements in ascending order.
+     */
+    public void printAscending() {
+        List<T> sorted = toSortedList();
+        if (keepLargest) {
+            Collections.reverse(sorted);
+        }
+        for (T element : sorted) {
+            System.out.println(element);
+        }
+    }
+
+    /**
+     * Returns the number of elements currently kept.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of elements this sequence keeps.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Checks if the sequence is empty.
+     *
+     * @return true if the sequence is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements from the sequence.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Tells whether {@code a} ranks strictly better than {@code b}.
+     * The heap keeps the worst kept element at the root.
+     */
+    private boolean before(T a, T b) {
+        int cmp = a.compareTo(b);
+        return keepLargest ? cmp > 0 : cmp < 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) heap[index];
+    }
+
+    private void siftUp(int index) {
+        T element = elementAt(index);
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            T parentElement = elementAt(parent);
+            if (!before(parentElement, element)) {
+                break;
+            }
+            heap[index] = parentElement;
+            index = parent;
+        }
+        heap[index] = element;
+    }
+
+    private void siftDown(int index) {
+        T element = elementAt(index);
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && before(elementAt(child), elementAt(right))) {
+                child = right;
+            }
+            if (!before(element, elementAt(child))) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = element;
+    }
+}
@@ -0,0 +1,490 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.HashMap;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * ForgeCache is a bounded in-memory cache that combines a hash map from key to
+ * {@link DoublyNode} with doubly linked recency queues, so lookups, move-to-front and
+ * eviction from the tail are all O(1).
+ * <p>
+ * The eviction policy is chosen at construction:
+ * <ul>
+ *   <li>{@link Policy#LRU}: a single queue that evicts the least recently used entry.</li>
+ *   <li>{@link Policy#SEGMENTED_LRU}: new entries start on a probation queue and move to a
+ *       protected queue (80% of the capacity) when they are hit again, so one-off scans
+ *       cannot flush the frequently used entries.</li>
+ *   <li>{@link Policy#W_TINY_LFU}: a small LRU window (1% of the capacity) in front of a
+ *       segmented LRU main area. An entry leaving the window is admitted only if a count-min
+ *       sketch estimates it is used more often than the entry it would evict.</li>
+ * </ul>
+ * Capacity is measured in weight; by default every entry weighs 1, so the capacity is the
+ * maximum number of entries. Hits, misses and evictions are counted.
+ * The cache is not thread-safe.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of cached values
+ */
+public class ForgeCache<K, V> {
+
+    /**
+     * The eviction policies supported by {@link ForgeCache}.
+     */
+    public enum Policy {
+        LRU,
+        SEGMENTED_LRU,
+        W_TINY_LFU
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Policy policy;
+    private final long maximumWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final HashMap<K, DoublyNode<Entry<K, V>>> map;
+    private final Segment<K, V> window, probation, protectedSegment;
+    private final long windowMaximum, mainMaximum, protectedMaximum;
+    private final FrequencySketch sketch;
+    private long hits, misses, evictions;
+
+    /**
+     * Constructs a cache where every entry weighs 1.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param policy      the eviction policy
+     * @throws IllegalArgumentException if the size is not positive or the policy is null
+     */
+    public ForgeCache(long maximumSize, Policy policy) {
+        this(maximumSize, policy, null);
+    }
+
+    /**
+     * Constructs a cache bounded by the total weight of its entries.
+     *
+     * @param maximumWeight the maximum total weight
+     * @param policy        the eviction policy
+     * @param weigher       computes the weight of an entry; null gives every entry a weight of 1
+     * @throws IllegalArgumentException if the weight is not positive or the policy is null
+     */
+    public ForgeCache(long maximumWeight, Policy policy, ToIntBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0 || policy == null) {
+            throw new IllegalArgumentException("A cache needs a positive capacity and a policy");
+        }
+        this.policy = policy;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.map = new HashMap<>();
+        this.window = new Segment<>();
+        this.probation = new Segment<>();
+        this.protectedSegment = new Segment<>();
+        if (policy == Policy.W_TINY_LFU) {
+            windowMaximum = Math.max(1, maximumWeight / 100);
+            mainMaximum = Math.max(1, maximumWeight - windowMaximum);
+            sketch = new FrequencySketch(maximumWeight);
+        } else {
+            windowMaximum = 0;
+            mainMaximum = maximumWeight;
+            sketch = null;
+        }
+        protectedMaximum = policy == Policy.LRU ? 0 : mainMaximum * 8 / 10;
+    }
+
+    /**
+     * Returns the value cached for a key and marks the entry as recently used.
+     *
+     * @param key the key to look up
+     * @return the cached value, or null if the key is not cached
+     */
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        DoublyNode<Entry<K, V>> node = map.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return node.getData().value;
+    }
+
+    /**
+     * Caches a value for a key, replacing any previous value, and evicts entries if the
+     * cache grows beyond its capacity. An entry heavier than the whole capacity is not cached.
+     *
+     * @param key   the key
+     * @param value the value to cache
+     * @return the previous value for the key, or null if there was none or an argument was null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            return null;
+        }
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        int weight = weigh(key, value);
+        DoublyNode<Entry<K, V>> node = map.get(key);
+        if (node != null) {
+            Entry<K, V> entry = node.getData();
+            V previous = entry.value;
+            entry.value = value;
+            segmentOf(entry).weight += weight - entry.weight;
+            entry.weight = weight;
+            onAccess(node);
+            evict();
+            return previous;
+        }
+        if (weight > maximumWeight) {
+            evictions++;
+            return null;
+        }
+        Entry<K, V> entry = new Entry<>(key, value, weight);
+        node = new DoublyNode<>(entry, null, null);
+        map.put(key, node);
+        entry.segment = policy == Policy.W_TINY_LFU ? WINDOW : PROBATION;
+        segmentOf(entry).addFirst(node, weight);
+        evict();
+        return null;
+    }
+
+    /**
+     * Removes the entry for a key.
+     *
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not cached
+     */
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        DoublyNode<Entry<K, V>> node = map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        segmentOf(node.getData()).remove(node);
+        return node.getData().value;
+    }
+
+    /**
+     * Checks if a key is cached, without touching its recency or the statistics.
+     *
+     * @param key the key to check
+     * @return true if the key is cached, false otherwise
+     */
+    public boolean containsKey(K key) {
+        return key != null && map.containsKey(key);
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns the total weight of the cached entries.
+     *
+     * @return the weighted size
+     */
+    public long weightedSize() {
+        return window.weight + probation.weight + protectedSegment.weight;
+    }
+
+    /**
+     * Returns the maximum total weight of the cache.
+     *
+     * @return the capacity
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns the eviction policy of the cache.
+     *
+     * @return the policy
+     */
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of lookups that found a value.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no value.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted or rejected to respect the capacity.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the fraction of lookups that found a value.
+     *
+     * @return the hit ratio, or 0 if there were no lookups
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     */
+    public void clear() {
+        map.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        hits = misses = evictions = 0;
+    }
+
+    /**
+     * Moves an accessed entry according to the policy.
+     */
+    private void onAccess(DoublyNode<Entry<K, V>> node) {
+        Entry<K, V> entry = node.getData();
+        if (entry.segment == PROBATION && policy != Policy.LRU) { // Promote on the second hit
+            probation.remove(node);
+            entry.segment = PROTECTED;
+            protectedSegment.addFirst(node, entry.weight);
+            while (protectedSegment.weight > protectedMaximum && protectedSegment.tail != node) {
+                DoublyNode<Entry<K, V>> demoted = protectedSegment.tail;
+                protectedSegment.remove(demoted);
+                demoted.getData().segment = PROBATION;
+                probation.addFirst(demoted, demoted.getData().weight);
+            }
+        } else {
+            segmentOf(entry).moveToFront(node);
+        }
+    }
+
+    /**
+     * Evicts entries until the cache respects its capacity.
+     */
+    private void evict() {
+        if (policy == Policy.W_TINY_LFU) {
+            while (window.weight > windowMaximum && window.tail != null) {
+                admit(window.tail);
+            }
+        }
+        while (weightedSize() > maximumWeight) {
+            DoublyNode<Entry<K, V>> victim = probation.tail != null ? probation.tail
+                    : protectedSegment.tail != null ? protectedSegment.tail : window.tail;
+            evictNode(victim);
+        }
+    }
+
+    /**
+     * Moves the candidate leaving the window into the main area if it is used more often
+     * than every entry it would displace, and evicts it otherwise. The victims are chosen and
+     * compared before any of them is evicted, so a rejected candidate costs no main entries.
+     */
+    private void admit(DoublyNode<Entry<K, V>> candidate) {
+        Entry<K, V> entry = candidate.getData();
+        window.remove(candidate);
+        long excess = probation.weight + protectedSegment.weight + entry.weight - mainMaximum;
+        int candidateFrequency = sketch.frequency(entry.key);
+        int victims = 0;
+        DoublyNode<Entry<K, V>> victim = probation.tail;
+        boolean inProtected = false;
+        while (excess > 0) {
+            if (victim == null && !inProtected) {
+                victim = protectedSegment.tail;
+                inProtected = true;
+                continue;
+            }
+            if (victim == null || sketch.frequency(victim.getData().key) >= candidateFrequency) {
+                map.remove(entry.key);
+                evictions++;
+                return;
+            }
+            excess -= victim.getData().weight;
+            victims++;
+            victim = victim.getPrevious();
+        }
+        for (; victims > 0; victims--) {
+            evictNode(probation.tail != null ? probation.tail : protectedSegment.tail);
+        }
+        entry.segment = PROBATION;
+        probation.addFirst(candidate, entry.weight);
+    }
+
+    private void evictNode(DoublyNode<Entry<K, V>> node) {
+        Entry<K, V> entry = node.getData();
+        segmentOf(entry).remove(node);
+        map.remove(entry.key);
+        evictions++;
+    }
+
+    private Segment<K, V> segmentOf(Entry<K, V> entry) {
+        switch (entry.segment) {
+            case WINDOW:
+                return window;
+            case PROTECTED:
+                return protectedSegment;
+            default:
+                return probation;
+        }
+    }
+
+    private int weigh(K key, V value) {
+        return weigher == null ? 1 : Math.max(0, weigher.applyAsInt(key, value));
+    }
+
+    /**
+     * A cached key-value pair, stored as the data of a {@link DoublyNode}.
+     */
+    private static class Entry<K, V> {
+        private final K key;
+        private V value;
+        private int weight;
+        private int segment;
+
+        Entry(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A recency queue: the head is the most recently used entry and the tail the least.
+     */
+    private static class Segment<K, V> {
+        private DoublyNode<Entry<K, V>> head, tail;
+        private long weight;
+
+        void addFirst(DoublyNode<Entry<K, V>> node, int nodeWeight) {
+            node.setPrevious(null);
+            node.setNext(head);
+            if (head == null) {
+                tail = node;
+            } else {
+                head.setPrevious(node);
+            }
+            head = node;
+            weight += nodeWeight;
+        }
+
+        void remove(DoublyNode<Entry<K, V>> node) {
+            if (node.getPrevious() == null) {
+                head = node.getNext();
+            } else {
+                node.getPrevious().setNext(node.getNext());
+            }
+            if (node.getNext() == null) {
+                tail = node.getPrevious();
+            } else {
+                node.getNext().setPrevious(node.getPrevious());
+            }
+            node.setPrevious(null);
+            node.setNext(null);
+            weight -= node.getData().weight;
+        }
+
+        void moveToFront(DoublyNode<Entry<K, V>> node) {
+            if (node != head) {
+                remove(node);
+                addFirst(node, node.getData().weight);
+            }
+        }
+
+        void clear() {
+            head = tail = null;
+            weight = 0;
+        }
+    }
+
+    /**
+     * A count-min sketch that estimates how often keys are used, with one byte per counter
+     * saturating at 15. Counters are halved periodically so the estimate follows recent
+     * popularity.
+     */
+    private static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97CB3127, 0xB7C1E2A5, 0x2F5A4E43, 0xD1B54A33};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int width = Integer.highestOneBit((int) Math.min(Math.max(expectedEntries, 16), 1 << 24) - 1) << 1;
+            table = new byte[DEPTH][width];
+            mask = width - 1;
+            sampleSize = 10 * width;
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, table[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (table[row][index] < MAX_COUNT) {
+                    table[row][index]++;
+                }
+            }
+            if (++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x45D9F3B;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.jangelmm.dataforge.list;
+
+/**
+ * ForgeCompactSequence is a sorted sequence, like {@link ForgeSequence}, that stores each
+ * distinct value only once together with its number of occurrences (run-length compaction).
+ * It keeps multiset semantics: inserting a value twice counts it twice, and every removal
+ * takes away a single occurrence. Positions refer to the expanded sequence and are resolved
+ * through cumulative counts, so scans cost O(distinct values) instead of O(elements).
+ *
+ * @param <T> the type of elements in this sequence
+ */
+public class ForgeCompactSequence<T extends Comparable<T>> {
+
+    private Run<T> head, tail;
+    private int size;
+    private int distinct;
+
+    /**
+     * Constructs an empty ForgeCompactSequence.
+     */
+    public ForgeCompactSequence() {
+        head = tail = null;
+        size = distinct = 0;
+    }
+
+    /**
+     * Inserts an occurrence of an element, keeping the sequence sorted.
+     *
+     * @param element the element to be added
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insert(T element) {
+        return insert(element, 1);
+    }
+
+    /**
+     * Inserts several occurrences of an element at once, keeping the sequence sorted.
+     *
+     * @param element the element to be added
+     * @param count   the number of occurrences to add
+     * @return true if the occurrences were successfully inserted, false otherwise
+     */
+    public boolean insert(T element, int count) {
+        if (element == null || count <= 0) {
+            return false;
+        }
+        if (tail != null && element.compareTo(tail.data) >= 0) {  // Fast path for ascending input
+            appendAfter(tail, element, count);
+            return true;
+        }
+        Run<T> previous = null;
+        Run<T> current = head;
+        while (current != null && current.data.compareTo(element) < 0) {
+            previous = current;
+            current = current.next;
+        }
+        if (current != null && current.data.compareTo(element) == 0) {
+            current.count += count;
+        } else {
+            Run<T> newRun = new Run<>(element, count, current);
+            if (previous == null) {
+                head = newRun;
+            } else {
+                previous.next = newRun;
+            }
+            if (current == null) {
+                tail = newRun;
+            }
+            distinct++;
+        }
+        size += count;
+        return true;
+    }
+
+    private void appendAfter(Run<T> last, T element, int count) {
+        if (last.data.compareTo(element) == 0) {
+            last.count += count;
+        } else {
+            Run<T> newRun = new Run<>(element, count, null);
+            last.next = newRun;
+            tail = newRun;
+            distinct++;
+        }
+        size += count;
+    }
+
+    /**
+     * Removes and returns one occurrence of the first element in the sequence.
+     *
+     * @return the first element, or null if the sequence is empty
+     */
+    public T removeFirst() {
+        if (head == null) {  // Empty list
+            return null;
+        }
+        T element = head.data;
+        if (--head.count == 0) {
+            head = head.next;
+            if (head == null) {  // The list becomes empty
+                tail = null;
+            }
+            distinct--;
+        }
+        size--;
+        return element;
+    }
+
+    /**
+     * Removes and returns one occurrence of the last element in the sequence.
+     * Only removing the last occurrence of a value requires walking the runs.
+     *
+     * @return the last element, or null if the sequence is empty
+     */
+    public T removeLast() {
+        if (head == null) {  // Empty list
+            return null;
+        }
+        T element = tail.data;
+        if (--tail.count == 0) {
+            if (head == tail) {  // Single run in the list
+                head = tail = null;
+            } else {
+                Run<T> current = head;
+                while (current.next != tail) {
+                    current = current.next;
+                }
+                tail = current;
+                tail.next = null;
+            }
+            distinct--;
+        }
+        size--;
+        return element;
+    }
+
+    /**
+     * Removes and returns one occurrence of the element at the specified position.
+     *
+     * @param position the position of the element to be removed
+     * @return the element at the specified position, or null if the position is invalid
+     */
+    public T removeAt(int position) {
+        if (position < 0 || position >= size) {  // Invalid position or empty list
+            return null;
+        }
+        Run<T> previous = null;
+        Run<T> current = head;
+        int start = 0;
+        while (start + current.count <= position) {
+            start += current.count;
+            previous = current;
+            current = current.next;
+        }
+        T element = current.data;
+        if (--current.count == 0) {
+            if (previous == null) {
+                head = current.next;
+            } else {
+                previous.next = current.next;
+            }
+            if (current == tail) {  // Last run was removed
+                tail = previous;
+            }
+            distinct--;
+        }
+        size--;
+        return element;
+    }
+
+    /**
+     * Removes one occurrence of the specified element.
+     *
+     * @param element the element to remove
+     * @return true if an occurrence was removed, false if the element was not found
+     */
+    public boolean remove(T element) {
+        if (element == null) {
+            return false;
+        }
+        Run<T> previous = null;
+        Run<T> current = head;
+        while (current != null && current.data.compareTo(element) < 0) {
+            previous = current;
+            current = current.next;
+        }
+        if (current == null || current.data.compareTo(element) != 0) {
+            return false;
+        }
+        if (--current.count == 0) {
+            if (previous == null) {
+                head = current.next;
+            } else {
+                previous.next = current.next;
+            }
+            if (current == tail) {
+                tail = previous;
+            }
+            distinct--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the element at the specified position without removing it.
+     *
+     * @param position the position of the element
+     * @return the element at the specified position, or null if the position is invalid
+     */
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        Run<T> current = head;
+        int start = 0;
+        while (start + current.count <= position) {
+            start += current.count;
+            current = current.next;
+        }
+        return current.data;
+    }
+
+    /**
+     * Returns the number of occurrences of an element.
+     *
+     * @param element the element to count
+     * @return the number of occurrences, or 0 if the element is not present
+     */
+    public int count(T element) {
+        if (element == null) {
+            return 0;
+        }
+        Run<T> current = head;
+        while (current != null && current.data.compareTo(element) < 0) {
+            current = current.next;
+        }
+        if (current != null && current.data.compareTo(element) == 0) {
+            return current.count;
+        }
+        return 0;
+    }
+
+    /**
+     * Searches for an element in the sequence.
+     *
+     * @param element the element to search for
+     * @return true if the element is found, false otherwise
+     */
+    public boolean contains(T element) {
+        return count(element) > 0;
+    }
+
+    /**
+     * Prints the elements of the sequence in ascending order, one line per occurrence.
+     */
+    public void printAscending() {
+        Run<T> current = head;
+        while (current != null) {
+            for (int i = 0; i < current.count; i++) {
+                System.out.println(current.data);
+            }
+            current = current.next;
+        }
+    }
+
+    /**
+     * Prints the elements of the sequence in descending order, one line per occurrence.
+     */
+    public void printDescending() {
+        printDescending(head);
+    }
+
+    /**
+     * Auxiliary function to use printDescending()
+     * @param current the current run to start the recursive printing
+     */
+    private void printDescending(Run<T> current) {
+        if (current != null) {
+            printDescending(current.next);
+            for (int i = 0; i < current.count; i++) {
+                System.out.println(current.data);
+            }
+        }
+    }
+
+    /**
+     * Returns the total number of occurrences stored in the sequence.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct values stored in the sequence.
+     *
+     * @return the number of distinct values
+     */
+    public int distinctCount() {
+        return distinct;
+    }
+
+    /**
+     * Checks if the sequence is empty.
+     *
+     * @return true if the sequence is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Run represents a distinct value and how many times it occurs.
+     *
+     * @param <T> the type of element held by the Run
+     */
+    private static class Run<T> {
+        private final T data;
+        private int count;
+        private Run<T> next;
+
+        /**
+         * Constructs a Run with specified data, occurrence count and next run.
+         *
+         * @param data  the value of the run
+         * @param count the number of occurrences
+         * @param next  the next run in the sequence
+         */
+        Run(T data, int count, Run<T> next) {
+            this.data = data;
+            this.count = count;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.jangelmm.dataforge.list;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code ForgeConcurrentDual} class is a lock-free, linearizable doubly linked deque that
+ * many threads can push to and pop from at both ends, with the same insertion and removal
+ * methods as {@link ForgeDual}.
+ * <p>
+ * It follows Maged Michael's anchor-based algorithm: the head, the tail and a status word live
+ * together in one immutable anchor that is replaced with a single CAS. A push swings the anchor
+ * to the new node and marks it unstable; the link from the old end node to the new one is then
+ * fixed by whichever thread comes next, so an operation never waits for a stalled thread.
+ * Garbage collection rules out the ABA problem, since a fresh anchor is allocated for every change.
+ *
+ * @param <T> The type of data stored in the deque.
+ */
+public class ForgeConcurrentDual<T> {
+
+    private static final int STABLE = 0;
+    private static final int RIGHT_PUSH = 1;
+    private static final int LEFT_PUSH = 2;
+
+    private static final Anchor<?> EMPTY = new Anchor<>(null, null, STABLE);
+
+    private final AtomicReference<Anchor<T>> anchor;
+
+    /**
+     * Constructs an empty deque.
+     */
+    @SuppressWarnings("unchecked")
+    public ForgeConcurrentDual() {
+        anchor = new AtomicReference<>((Anchor<T>) EMPTY);
+    }
+
+    /**
+     * Inserts a new element at the beginning of the deque.
+     *
+     * @param data The data to insert.
+     * @return {@code true} if the insertion was successful, {@code false} if the data is {@code null}.
+     */
+    public boolean insertAtStart(T data) {
+        if (data == null) {
+            return false;
+        }
+        Node<T> node = new Node<>(data);
+        while (true) {
+            Anchor<T> current = anchor.get();
+            if (current.left == null) {
+                if (anchor.compareAndSet(current, new Anchor<>(node, node, STABLE))) {
+                    return true;
+                }
+            } else if (current.status == STABLE) {
+                node.right = current.left;
+                Anchor<T> pushed = new Anchor<>(node, current.right, LEFT_PUSH);
+                if (anchor.compareAndSet(current, pushed)) {
+                    stabilizeLeft(pushed);
+                    return true;
+                }
+            } else {
+                stabilize(current);
+            }
+        }
+    }
+
+    /**
+     * Inserts a new element at the end of the deque.
+     *
+     * @param data The data to insert.
+     * @return {@code true} if the insertion was successful, {@code false} if the data is {@code null}.
+     */
+    public boolean insertAtEnd(T data) {
+        if (data == null) {
+            return false;
+        }
+        Node<T> node = new Node<>(data);
+        while (true) {
+            Anchor<T> current = anchor.get();
+            if (current.right == null) {
+                if (anchor.compareAndSet(current, new Anchor<>(node, node, STABLE))) {
+                    return true;
+                }
+            } else if (current.status == STABLE) {
+                node.left = current.right;
+                Anchor<T> pushed = new Anchor<>(current.left, node, RIGHT_PUSH);
+                if (anchor.compareAndSet(current, pushed)) {
+                    stabilizeRight(pushed);
+                    return true;
+                }
+            } else {
+                stabilize(current);
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the start of the deque.
+     *
+     * @return The data of the removed element, or {@code null} if the deque is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T removeHead() {
+        while (true) {
+            Anchor<T> current = anchor.get();
+            if (current.left == null) {
+                return null;
+            }
+            if (current.left == current.right) {
+                if (anchor.compareAndSet(current, (Anchor<T>) EMPTY)) {
+                    return detach(current.left);
+                }
+            } else if (current.status == STABLE) {
+                Node<T> next = current.left.right;
+                if (anchor.compareAndSet(current, new Anchor<>(next, current.right, STABLE))) {
+                    Node<T> removed = current.left;
+                    removed.left = null; // Drop the chain back through earlier removed nodes
+                    return detach(removed);
+                }
+            } else {
+                stabilize(current);
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the end of the deque.
+     *
+     * @return The data of the removed element, or {@code null} if the deque is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T removeTail() {
+        while (true) {
+            Anchor<T> current = anchor.get();
+            if (current.right == null) {
+                return null;
+            }
+            if (current.left == current.right) {
+                if (anchor.compareAndSet(current, (Anchor<T>) EMPTY)) {
+                    return detach(current.right);
+                }
+            } else if (current.status == STABLE) {
+                Node<T> previous = current.right.left;
+                if (anchor.compareAndSet(current, new Anchor<>(current.left, previous, STABLE))) {
+                    Node<T> removed = current.right;
+                    removed.right = null; // Drop the chain back through earlier removed nodes
+                    return detach(removed);
+                }
+            } else {
+                stabilize(current);
+            }
+        }
+    }
+
+    /**
+     * Returns the element at the start of the deque without removing it.
+     *
+     * @return The first element, or {@code null} if the deque is empty.
+     */
+    public T peekHead() {
+        while (true) {
+            Node<T> left = anchor.get().left;
+            if (left == null) {
+                return null;
+            }
+            T data = left.data;
+            if (data != null) { // Null only if the node was removed and cleared meanwhile
+                return data;
+            }
+        }
+    }
+
+    /**
+     * Returns the element at the end of the deque without removing it.
+     *
+     * @return The last element, or {@code null} if the deque is empty.
+     */
+    public T peekTail() {
+        while (true) {
+            Node<T> right = anchor.get().right;
+            if (right == null) {
+                return null;
+            }
+            T data = right.data;
+            if (data != null) {
+                return data;
+            }
+        }
+    }
+
+    /**
+     * Checks if the deque is empty at the moment of the call.
+     *
+     * @return {@code true} if the deque is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return anchor.get().left == null;
+    }
+
+    /**
+     * Returns the data of a node that a successful anchor CAS has just removed, and clears it
+     * so the node does not keep the element reachable. Threads still holding the old anchor
+     * can no longer succeed with it.
+     */
+    private static <T> T detach(Node<T> removed) {
+        T data = removed.data;
+        removed.data = null;
+        return data;
+    }
+
+    /**
+     * Completes the pending push recorded in an unstable anchor.
+     */
+    private void stabilize(Anchor<T> current) {
+        if (current.status == RIGHT_PUSH) {
+            stabilizeRight(current);
+        } else {
+            stabilizeLeft(current);
+        }
+    }
+
+    /**
+     * Links the old tail to the node pushed at the end, then marks the anchor stable.
+     */
+    private void stabilizeRight(Anchor<T> current) {
+        Node<T> previous = current.right.left;
+        if (anchor.get() != current) {
+            return;
+        }
+        Node<T> previousNext = previous.right;
+        if (previousNext != current.right) {
+            if (anchor.get() != current) {
+                return;
+            }
+            if (!Node.RIGHT.compareAndSet(previous, previousNext, current.right)) {
+                return;
+            }
+        }
+        anchor.compareAndSet(current, new Anchor<>(current.left, current.right, STABLE));
+    }
+
+    /**
+     * Links the old head to the node pushed at the start, then marks the anchor stable.
+     */
+    private void stabilizeLeft(Anchor<T> current) {
+        Node<T> next = current.left.right;
+        if (anchor.get() != current) {
+            return;
+        }
+        Node<T> nextPrevious = next.left;
+        if (nextPrevious != current.left) {
+            if (anchor.get() != current) {
+                return;
+            }
+            if (!Node.LEFT.compareAndSet(next, nextPrevious, current.left)) {
+                return;
+            }
+        }
+        anchor.compareAndSet(current, new Anchor<>(current.left, current.right, STABLE));
+    }
+
+    /**
+     * The ends of the deque and whether a push still has to link its node to the old end.
+     */
+    private static final class Anchor<T> {
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int status;
+
+        Anchor(Node<T> left, Node<T> right, int status) {
+            this.left = left;
+            this.right = right;
+            this.status = status;
+        }
+    }
+
+    /**
+     * A node of the deque. Its links are only written before it is published or by CAS.
+     */
+    private static final class Node<T> {
+        private static final VarHandle LEFT;
+        private static final VarHandle RIGHT;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                LEFT = lookup.findVarHandle(Node.class, "left", Node.class);
+                RIGHT = lookup.findVarHandle(Node.class, "right", Node.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile T data;
+        private volatile Node<T> left;
+        private volatile Node<T> right;
+
+        Node(T data) {
+            this.data = data;
+        }
+    }
+}
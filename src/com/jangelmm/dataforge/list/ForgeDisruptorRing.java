@@ -0,0 +1,448 @@
+package com.jangelmm.dataforge.list;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * ForgeDisruptorRing is a lock-free, pre-allocated ring in the {@link ForgeRing} family that
+ * hands events from several producers to a pipeline of consumer stages, in the style of the
+ * LMAX Disruptor.
+ * <p>
+ * Every slot holds an entry created once by a factory and reused in place, so steady-state
+ * publication allocates nothing. Producers claim sequence numbers with a CAS on the cursor,
+ * fill the claimed entries and publish them. Each consumer owns a padded {@link Sequence} with
+ * the last sequence it processed, and waits on a {@link Barrier} that tracks the cursor and,
+ * optionally, the sequences of the stages it depends on. The sequences of the last stages are
+ * registered as gating sequences so producers never overwrite unprocessed entries.
+ * <pre>
+ * ForgeDisruptorRing&lt;Event&gt; ring = new ForgeDisruptorRing&lt;&gt;(1024, Event::new, WaitStrategy.YIELDING);
+ * Sequence stageA = new Sequence(), stageB = new Sequence();
+ * Barrier barrierA = ring.newBarrier();
+ * Barrier barrierB = ring.newBarrier(stageA);   // stage B follows stage A
+ * ring.addGatingSequences(stageB);
+ *
+ * long sequence = ring.next();                  // producer
+ * ring.get(sequence).setValue(42);
+ * ring.publish(sequence);
+ *
+ * long next = stageA.get() + 1;                 // consumer loop of stage A
+ * long available = barrierA.waitFor(next);
+ * for (; next &lt;= available; next++) {
+ *     handle(ring.get(next));
+ * }
+ * stageA.set(available);
+ * </pre>
+ *
+ * @param <E> the type of entries in this ring
+ */
+public class ForgeDisruptorRing<E> {
+
+    /**
+     * The value of a sequence before anything was claimed or processed.
+     */
+    public static final long INITIAL_SEQUENCE = -1L;
+
+    private final Object[] entries;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicIntegerArray published;
+    private final Sequence cursor;
+    private final Sequence gatingCache;
+    private final WaitStrategy waitStrategy;
+    private volatile Sequence[] gatingSequences;
+
+    /**
+     * Constructs a ring and fills every slot with an entry from the factory.
+     *
+     * @param capacity     the number of slots, which must be a power of two
+     * @param factory      creates the entries that are reused in place
+     * @param waitStrategy how producers and consumers wait for each other
+     * @throws IllegalArgumentException if the capacity is not a positive power of two
+     */
+    public ForgeDisruptorRing(int capacity, Supplier<E> factory, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        entries = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+        }
+        mask = capacity - 1;
+        indexShift = Integer.numberOfTrailingZeros(capacity);
+        published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        cursor = new Sequence();
+        gatingCache = new Sequence();
+        this.waitStrategy = waitStrategy;
+        gatingSequences = new Sequence[0];
+    }
+
+    /**
+     * Registers the sequences of the consumers that producers must not overtake,
+     * normally those of the last stages of the pipeline.
+     *
+     * @param sequences the consumer sequences to add
+     */
+    public synchronized void addGatingSequences(Sequence... sequences) {
+        Sequence[] current = gatingSequences;
+        Sequence[] updated = Arrays.copyOf(current, current.length + sequences.length);
+        System.arraycopy(sequences, 0, updated, current.length, sequences.length);
+        gatingSequences = updated;
+    }
+
+    /**
+     * Creates a barrier for a consumer stage.
+     *
+     * @param dependencies the sequences of the stages that must process an entry first;
+     *                     none for a stage that reads straight from the producers
+     * @return the new barrier
+     */
+    public Barrier newBarrier(Sequence... dependencies) {
+        return new Barrier(dependencies.clone());
+    }
+
+    /**
+     * Claims the next slot, waiting while the ring is full.
+     *
+     * @return the claimed sequence
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Claims the next {@code n} slots, waiting while the ring is full.
+     *
+     * @param n the number of slots to claim
+     * @return the highest claimed sequence; the batch starts at {@code result - n + 1}
+     * @throws IllegalArgumentException if n is not between 1 and the capacity
+     */
+    public long next(int n) {
+        if (n < 1 || n > entries.length) {
+            throw new IllegalArgumentException("Cannot claim " + n + " slots");
+        }
+        int counter = 0;
+        while (true) {
+            long current = cursor.get();
+            long next = current + n;
+            long wrapPoint = next - entries.length;
+            long cachedGating = gatingCache.get();
+            if (wrapPoint > cachedGating || cachedGating > current) {
+                long gating = minimumSequence(gatingSequences, current);
+                if (wrapPoint > gating) { // The ring is full
+                    counter = waitStrategy.idle(counter);
+                    continue;
+                }
+                gatingCache.set(gating);
+            } else if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Claims the next slot only if the ring has room for it.
+     *
+     * @return the claimed sequence, or {@link #INITIAL_SEQUENCE} if the ring is full
+     */
+    public long tryNext() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            if (next - entries.length > minimumSequence(gatingSequences, current)) {
+                return INITIAL_SEQUENCE;
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Returns the entry for a sequence. Producers fill it between claiming and publishing,
+     * consumers read it once their barrier reports the sequence as available.
+     *
+     * @param sequence the sequence of the entry
+     * @return the entry stored in that slot
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Makes a claimed sequence visible to consumers.
+     *
+     * @param sequence the sequence to publish
+     */
+    public void publish(long sequence) {
+        published.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+    }
+
+    /**
+     * Makes a claimed range of sequences visible to consumers.
+     *
+     * @param low  the first sequence to publish
+     * @param high the last sequence to publish
+     */
+    public void publish(long low, long high) {
+        for (long sequence = low; sequence <= high; sequence++) {
+            publish(sequence);
+        }
+    }
+
+    /**
+     * Returns the highest sequence claimed so far, published or not.
+     *
+     * @return the cursor
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Returns the number of slots producers can claim right now without waiting.
+     *
+     * @return the remaining capacity
+     */
+    public long remainingCapacity() {
+        long current = cursor.get();
+        return entries.length - (current - minimumSequence(gatingSequences, current));
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    /**
+     * Returns the highest sequence in {@code [low, high]} such that every sequence from
+     * {@code low} up to it has been published.
+     */
+    private long highestPublished(long low, long high) {
+        for (long sequence = low; sequence <= high; sequence++) {
+            if (!isPublished(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return high;
+    }
+
+    private static long minimumSequence(Sequence[] sequences, long minimum) {
+        for (Sequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    /**
+     * Lets a consumer stage wait until entries are published and processed by the stages it depends on.
+     */
+    public final class Barrier {
+        private final Sequence[] dependencies;
+        private volatile boolean alerted;
+
+        private Barrier(Sequence[] dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Waits until the given sequence is available to this stage.
+         *
+         * @param sequence the sequence the consumer wants to process next
+         * @return the highest available sequence, which may be greater than the requested one,
+         *         or {@code sequence - 1} if the barrier was alerted
+         */
+        public long waitFor(long sequence) {
+            int counter = 0;
+            long available;
+            while ((available = cursor.get()) < sequence) {
+                if (alerted) {
+                    return sequence - 1;
+                }
+                counter = waitStrategy.idle(counter);
+            }
+            if (dependencies.length > 0) {
+                while ((available = minimumSequence(dependencies, Long.MAX_VALUE)) < sequence) {
+                    if (alerted) {
+                        return sequence - 1;
+                    }
+                    counter = waitStrategy.idle(counter);
+                }
+            }
+            return highestPublished(sequence, available);
+        }
+
+        /**
+         * Wakes up the consumer waiting on this barrier, for example to shut it down.
+         */
+        public void alert() {
+            alerted = true;
+        }
+
+        /**
+         * Clears the alert so the barrier can be waited on again.
+         */
+        public void clearAlert() {
+            alerted = false;
+        }
+
+        /**
+         * Checks if the barrier was alerted.
+         *
+         * @return true if the barrier was alerted, false otherwise
+         */
+        public boolean isAlerted() {
+            return alerted;
+        }
+    }
+
+    /**
+     * How a thread waits for a sequence to become available.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins on the CPU. Lowest latency, but burns a core per waiting thread;
+         * only use it when every producer and consumer has a core of its own.
+         */
+        BUSY_SPIN {
+            @Override
+            int idle(int counter) {
+                Thread.onSpinWait();
+                return counter + 1;
+            }
+        },
+        /**
+         * Spins briefly and then yields the CPU to other threads.
+         */
+        YIELDING {
+            @Override
+            int idle(int counter) {
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                return counter + 1;
+            }
+        },
+        /**
+         * Spins, then yields, and finally parks for short periods. Gentlest on the CPU.
+         */
+        PARKING {
+            @Override
+            int idle(int counter) {
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (counter < 2 * SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                return counter + 1;
+            }
+        };
+
+        private static final int SPIN_TRIES = 100;
+        private static final long PARK_NANOS = 50_000L;
+
+        /**
+         * Waits once.
+         *
+         * @param counter how many times the caller already waited for the same condition
+         * @return the counter for the next call
+         */
+        abstract int idle(int counter);
+    }
+
+    /**
+     * Left cache-line padding of a {@link Sequence}.
+     */
+    abstract static class LeftPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    /**
+     * The value of a {@link Sequence}, isolated between the paddings.
+     */
+    abstract static class SequenceValue extends LeftPadding {
+        protected volatile long value;
+    }
+
+    /**
+     * A sequence counter padded to its own cache line, so that producers and consumers
+     * updating neighbouring sequences do not slow each other down through false sharing.
+     */
+    public static final class Sequence extends SequenceValue {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        protected long p9, p10, p11, p12, p13, p14, p15;
+
+        /**
+         * Constructs a sequence set to {@link #INITIAL_SEQUENCE}.
+         */
+        public Sequence() {
+            this(INITIAL_SEQUENCE);
+        }
+
+        /**
+         * Constructs a sequence with the given initial value.
+         *
+         * @param initialValue the initial value
+         */
+        public Sequence(long initialValue) {
+            VALUE.setRelease(this, initialValue);
+        }
+
+        /**
+         * Returns the current value with volatile semantics.
+         *
+         * @return the value
+         */
+        public long get() {
+            return value;
+        }
+
+        /**
+         * Sets the value with release semantics, which is enough to publish progress.
+         *
+         * @param newValue the new value
+         */
+        public void set(long newValue) {
+            VALUE.setRelease(this, newValue);
+        }
+
+        /**
+         * Atomically sets the value if it still equals the expected one.
+         *
+         * @param expected the expected value
+         * @param newValue the new value
+         * @return true if the value was updated, false otherwise
+         */
+        public boolean compareAndSet(long expected, long newValue) {
+            return VALUE.compareAndSet(this, expected, newValue);
+        }
+    }
+}
@@ -3,17 +3,26 @@ package com.jangelmm.dataforge.list;
 /**
  * The {@code ForgeDual} class represents a doubly linked list that can store any type of data.
  * It supports operations to insert, remove, and search for elements within the list.
+ * <p>
+ * Positional operations walk from whichever is closest to the requested position: the head,
+ * the tail, or a "finger" that remembers the last node accessed by position. Sequential or
+ * nearby positional access therefore costs O(distance) instead of O(index).
  *
  * @param <T> The type of data stored in the list.
  */
 public class ForgeDual<T> {
     private DoublyNode<T> head, tail;
+    private int size;
+    private DoublyNode<T> finger;
+    private int fingerIndex;
 
     /**
      * Constructs an empty doubly linked list.
      */
     public ForgeDual() {
         head = tail = null;
+        size = 0;
+        finger = null;
     }
 
     /**
@@ -36,6 +45,10 @@ public class ForgeDual<T> {
             head.setPrevious(newNode);
             head = newNode;
         }
+        size++;
+        if (finger != null) {
+            fingerIndex++;
+        }
         return true;
     }
 
@@ -59,6 +72,7 @@ public class ForgeDual<T> {
             tail.setNext(newNode);
             tail = newNode;
         }
+        size++;
         return true;
     }
 
@@ -74,6 +88,7 @@ public class ForgeDual<T> {
             return false;
         }
         DoublyNode<T> current = head;
+        int index = 0;
         while (current != null) {
             if (current.getData().equals(reference)) {
                 if (current.getNext() == null) {
@@ -85,9 +100,11 @@ public class ForgeDual<T> {
                     }
                     current.getNext().setPrevious(newNode);
                     current.setNext(newNode);
+                    linked(index + 1);
                     return true;
                 }
             }
+            index++;
             current = current.getNext();
         }
         return false;
@@ -108,6 +125,7 @@ public class ForgeDual<T> {
             return insertAtStart(data);
         }
         DoublyNode<T> current = head.getNext();
+        int index = 1;
         while (current != null) {
             if (current.getData().equals(reference)) {
                 DoublyNode<T> newNode = new DoublyNode<>(data, current.getPrevious(), current);
@@ -116,8 +134,10 @@ public class ForgeDual<T> {
                 }
                 current.getPrevious().setNext(newNode);
                 current.setPrevious(newNode);
+                linked(index);
                 return true;
             }
+            index++;
             current = current.getNext();
         }
         return false;
@@ -148,23 +168,21 @@ public class ForgeDual<T> {
         if (position == 0) {
             return insertAtStart(data);
         }
-        int count = 0;
-        DoublyNode<T> current = head;
-        while (current != null) {
-            if (count == position - 1) {
-                DoublyNode<T> newNode = new DoublyNode<>(data, current, current.getNext());
-                if (current.getNext() != null) {
-                    current.getNext().setPrevious(newNode);
-                } else {
-                    tail = newNode;
-                }
-                current.setNext(newNode);
-                return true;
-            }
-            count++;
-            current = current.getNext();
+        if (position > size) {
+            return false;
         }
-        return false;
+        DoublyNode<T> current = nodeAt(position - 1);
+        DoublyNode<T> newNode = new DoublyNode<>(data, current, current.getNext());
+        if (current.getNext() != null) {
+            current.getNext().setPrevious(newNode);
+        } else {
+            tail = newNode;
+        }
+        current.setNext(newNode);
+        size++;
+        finger = newNode;
+        fingerIndex = position;
+        return true;
     }
 
     /**
@@ -177,14 +195,7 @@ public class ForgeDual<T> {
             return null;
         }
         T data = head.getData();
-        if (head == tail) {
-            head = tail = null;
-        } else {
-            head = head.getNext();
-            if (head != null) {
-                head.setPrevious(null);
-            }
-        }
+        unlink(head, 0);
         return data;
     }
 
@@ -198,14 +209,7 @@ public class ForgeDual<T> {
             return null;
         }
         T data = tail.getData();
-        if (head == tail) {
-            head = tail = null;
-        } else {
-            tail = tail.getPrevious();
-            if (tail != null) {
-                tail.setNext(null);
-            }
-        }
+        unlink(tail, size - 1);
         return data;
     }
 
@@ -216,11 +220,18 @@ public class ForgeDual<T> {
      * @return The removed data, or {@code null} if the element was not found.
      */
     public T removeElement(T data) {
-        if (!contains(data)) {
-            return null;
+        int pos = 0;
+        DoublyNode<T> current = head;
+        while (current != null) {
+            if (current.getData().equals(data)) {
+                T removed = current.getData();
+                unlink(current, pos);
+                return removed;
+            }
+            pos++;
+            current = current.getNext();
         }
-        int pos = getPosition(data);
-        return removeAtPosition(pos);
+        return null;
     }
 
     /**
@@ -233,26 +244,118 @@ public class ForgeDual<T> {
         if (position < 0 || head == null) {
             return null;
         }
-        if (position == 0) {
-            return removeHead();
+        if (position >= size) {
+            return null;
+        }
+        DoublyNode<T> current = nodeAt(position);
+        T data = current.getData();
+        unlink(current, position);
+        return data;
+    }
+
+    /**
+     * Moves every element of another list to the end of this list in O(1).
+     * The nodes are relinked rather than copied, so the other list is left empty.
+     *
+     * @param other The list whose elements are appended.
+     * @return {@code true} if the lists were joined, {@code false} if the other list is
+     *         {@code null} or this same list.
+     */
+    public boolean concat(ForgeDual<T> other) {
+        if (other == null || other == this) {
+            return false;
+        }
+        if (other.head == null) {
+            return true;
+        }
+        if (head == null) {
+            head = other.head;
+        } else {
+            tail.setNext(other.head);
+            other.head.setPrevious(tail);
+        }
+        tail = other.tail;
+        size += other.size;
+        other.detachAll();
+        return true;
+    }
+
+    /**
+     * Moves every element of another list right after the first occurrence of a reference
+     * element. Finding the reference costs a walk; the relinking itself is O(1). The other
+     * list is left empty.
+     *
+     * @param reference The element after which the other list is inserted.
+     * @param other     The list whose elements are inserted.
+     * @return {@code true} if the elements were inserted, {@code false} if the reference was
+     *         not found or the other list is {@code null} or this same list.
+     */
+    public boolean spliceAfter(T reference, ForgeDual<T> other) {
+        if (reference == null || other == null || other == this) {
+            return false;
         }
-        int count = 0;
         DoublyNode<T> current = head;
-        while (current != null) {
-            if (count == position) {
-                T data = current.getData();
-                if (current == tail) {
-                    return removeTail();
-                } else {
-                    current.getPrevious().setNext(current.getNext());
-                    current.getNext().setPrevious(current.getPrevious());
-                }
-                return data;
-            }
-            count++;
+        int index = 0;
+        while (current != null && !current.getData().equals(reference)) {
+            index++;
             current = current.getNext();
         }
-        return null;
+        if (current == null) {
+            return false;
+        }
+        if (other.head == null) {
+            return true;
+        }
+        DoublyNode<T> next = current.getNext();
+        current.setNext(other.head);
+        other.head.setPrevious(current);
+        other.tail.setNext(next);
+        if (next == null) {
+            tail = other.tail;
+        } else {
+            next.setPrevious(other.tail);
+        }
+        size += other.size;
+        if (finger != null && fingerIndex > index) {
+            fingerIndex += other.size;
+        }
+        other.detachAll();
+        return true;
+    }
+
+    /**
+     * Splits the list at a position. This list keeps the elements before the position and the
+     * elements from the position onwards are moved, without copying, into a new list.
+     * The cost is the walk to the split point.
+     *
+     * @param position The position of the first element of the new list, between 0 and the size.
+     * @return The list with the elements from the position onwards, or {@code null} if the
+     *         position is invalid.
+     */
+    public ForgeDual<T> splitAt(int position) {
+        if (position < 0 || position > size) {
+            return null;
+        }
+        ForgeDual<T> result = new ForgeDual<>();
+        if (position == size) {
+            return result;
+        }
+        DoublyNode<T> first = nodeAt(position);
+        DoublyNode<T> last = first.getPrevious();
+        result.head = first;
+        result.tail = tail;
+        result.size = size - position;
+        first.setPrevious(null);
+        if (last == null) {
+            head = null;
+        } else {
+            last.setNext(null);
+        }
+        tail = last;
+        size = position;
+        finger = last;
+        fingerIndex = position - 1;
+        return result;
     }
 
     /**
@@ -266,6 +369,8 @@ public class ForgeDual<T> {
         DoublyNode<T> current = head;
         while (current != null) {
             if (current.getData().equals(data)) {
+                finger = current;
+                fingerIndex = pos;
                 return pos;
             }
             pos++;
@@ -290,4 +395,118 @@ public class ForgeDual<T> {
         }
         return false;
     }
+
+    /**
+     * Returns the element at a specific position in the list.
+     *
+     * @param position The position of the element.
+     * @return The element at that position, or {@code null} if the position is invalid.
+     */
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        return nodeAt(position).getData();
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return The number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return {@code true} if the list is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Returns the node at a valid position, walking from the closest of the head, the tail
+     * and the finger, and leaves the finger on it.
+     *
+     * @param index The position of the node, between 0 and {@code size - 1}.
+     * @return The node at that position.
+     */
+    private DoublyNode<T> nodeAt(int index) {
+        DoublyNode<T> current = head;
+        int currentIndex = 0;
+        if (size - 1 - index < index) {
+            current = tail;
+            currentIndex = size - 1;
+        }
+        if (finger != null && Math.abs(index - fingerIndex) < Math.abs(index - currentIndex)) {
+            current = finger;
+            currentIndex = fingerIndex;
+        }
+        while (currentIndex < index) {
+            current = current.getNext();
+            currentIndex++;
+        }
+        while (currentIndex > index) {
+            current = current.getPrevious();
+            currentIndex--;
+        }
+        finger = current;
+        fingerIndex = index;
+        return current;
+    }
+
+    /**
+     * Forgets every node after they were moved to another list.
+     */
+    private void detachAll() {
+        head = tail = null;
+        size = 0;
+        finger = null;
+    }
+
+    /**
+     * Updates the bookkeeping after a node was linked in the middle of the list.
+     *
+     * @param index The position of the new node.
+     */
+    private void linked(int index) {
+        size++;
+        if (finger != null && fingerIndex >= index) {
+            fingerIndex++;
+        }
+    }
+
+    /**
+     * Unlinks a node from the list, keeping the size and the finger consistent.
+     * The finger moves to the neighbour of a removed finger node.
+     *
+     * @param node  The node to remove.
+     * @param index The position of the node.
+     */
+    private void unlink(DoublyNode<T> node, int index) {
+        DoublyNode<T> previous = node.getPrevious();
+        DoublyNode<T> next = node.getNext();
+        if (previous == null) {
+            head = next;
+        } else {
+            previous.setNext(next);
+        }
+        if (next == null) {
+            tail = previous;
+        } else {
+            next.setPrevious(previous);
+        }
+        node.setPrevious(null);
+        node.setNext(null);
+        size--;
+        if (finger == node) {
+            finger = next != null ? next : previous;
+            fingerIndex = next != null ? index : index - 1;
+        } else if (finger != null && fingerIndex > index) {
+            fingerIndex--;
+        }
+    }
 }
@@ -0,0 +1,279 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ForgeGapBuffer is a sequence stored in one array with a movable gap of free slots, the
+ * classic structure behind text editors. The gap sits at the cursor, the position of the
+ * last edit, so insertions and removals at the cursor cost O(1) amortized. Editing elsewhere
+ * first moves the gap, at a cost proportional to the distance, and indexed access is always O(1).
+ * <p>
+ * It suits small sequences whose edits cluster around a moving cursor; see {@link ForgeRope}
+ * for large sequences edited at scattered positions.
+ *
+ * @param <T> the type of elements in this buffer
+ */
+public class ForgeGapBuffer<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] buffer;
+    private int gapStart;
+    private int gapEnd;
+
+    /**
+     * Constructs an empty ForgeGapBuffer.
+     */
+    public ForgeGapBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ForgeGapBuffer with room for the given number of elements.
+     *
+     * @param initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ForgeGapBuffer(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + initialCapacity);
+        }
+        buffer = new Object[initialCapacity];
+        gapStart = 0;
+        gapEnd = initialCapacity;
+    }
+
+    /**
+     * Inserts an element at a position, moving the cursor right after it.
+     *
+     * @param position the position of the new element, between 0 and the size
+     * @param element  the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtPosition(int position, T element) {
+        if (element == null || position < 0 || position > size()) {
+            return false;
+        }
+        moveGap(position);
+        if (gapStart == gapEnd) {
+            grow();
+        }
+        buffer[gapStart++] = element;
+        return true;
+    }
+
+    /**
+     * Inserts an element at the cursor, moving the cursor right after it.
+     *
+     * @param element the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtCursor(T element) {
+        return insertAtPosition(gapStart, element);
+    }
+
+    /**
+     * Inserts an element after the last one.
+     *
+     * @param element the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtEnd(T element) {
+        return insertAtPosition(size(), element);
+    }
+
+    /**
+     * Removes the element at a position, moving the cursor to that position.
+     *
+     * @param position the position of the element to remove
+     * @return the removed element, or null if the position is invalid
+     */
+    public T removeAtPosition(int position) {
+        if (position < 0 || position >= size()) {
+            return null;
+        }
+        moveGap(position);
+        T data = elementAt(gapEnd);
+        buffer[gapEnd++] = null;
+        return data;
+    }
+
+    /**
+     * Removes the element right before the cursor, like a backspace.
+     *
+     * @return the removed element, or null if the cursor is at the start
+     */
+    public T removeBeforeCursor() {
+        if (gapStart == 0) {
+            return null;
+        }
+        T data = elementAt(--gapStart);
+        buffer[gapStart] = null;
+        return data;
+    }
+
+    /**
+     * Returns the element at a position.
+     *
+     * @param position the position of the element
+     * @return the element, or null if the position is invalid
+     */
+    public T get(int position) {
+        if (position < 0 || position >= size()) {
+            return null;
+        }
+        return elementAt(index(position));
+    }
+
+    /**
+     * Replaces the element at a position without moving the cursor.
+     *
+     * @param position the position of the element
+     * @param element  the new element
+     * @return the previous element, or null if the position or the element is invalid
+     */
+    public T set(int position, T element) {
+        if (element == null || position < 0 || position >= size()) {
+            return null;
+        }
+        int index = index(position);
+        T previous = elementAt(index);
+        buffer[index] = element;
+        return previous;
+    }
+
+    /**
+     * Returns the elements of a range, in order.
+     *
+     * @param from the position of the first element, inclusive
+     * @param to   the position after the last element, exclusive
+     * @return a new list with the elements, or null if the range is invalid
+     */
+    public List<T> subList(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            return null;
+        }
+        List<T> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(elementAt(index(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the cursor, where the next insertion at the cursor goes.
+     *
+     * @return the cursor position
+     */
+    public int getCursor() {
+        return gapStart;
+    }
+
+    /**
+     * Moves the cursor, and the gap with it, to a position.
+     *
+     * @param position the new cursor position, between 0 and the size
+     * @return true if the cursor was moved, false if the position is invalid
+     */
+    public boolean moveCursor(int position) {
+        if (position < 0 || position > size()) {
+            return false;
+        }
+        moveGap(position);
+        return true;
+    }
+
+    /**
+     * Applies an action to every element in order.
+     *
+     * @param action the action to apply
+     */
+    public void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < gapStart; i++) {
+            action.accept(elementAt(i));
+        }
+        for (int i = gapEnd; i < buffer.length; i++) {
+            action.accept(elementAt(i));
+        }
+    }
+
+    /**
+     * Returns the number of elements in the buffer.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * Checks if the buffer is empty.
+     *
+     * @return true if the buffer is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Prints all elements in order.
+     */
+    public void printData() {
+        if (isEmpty()) {
+            System.out.println("No elements in the buffer.");
+        } else {
+            forEach(System.out::println);
+        }
+    }
+
+    /**
+     * Moves the gap so that it starts at the given position.
+     */
+    private void moveGap(int position) {
+        if (position < gapStart) {
+            int count = gapStart - position;
+            System.arraycopy(buffer, position, buffer, gapEnd - count, count);
+            clearSlots(position, Math.min(gapStart, gapEnd - count));
+            gapStart = position;
+            gapEnd -= count;
+        } else if (position > gapStart) {
+            int count = position - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+            clearSlots(Math.max(gapEnd, position), gapEnd + count);
+            gapStart = position;
+            gapEnd += count;
+        }
+    }
+
+    /**
+     * Drops references left behind in slots that became part of the gap.
+     */
+    private void clearSlots(int from, int to) {
+        for (int i = from; i < to; i++) {
+            buffer[i] = null;
+        }
+    }
+
+    private void grow() {
+        int tailLength = buffer.length - gapEnd;
+        Object[] bigger = new Object[buffer.length * 2];
+        System.arraycopy(buffer, 0, bigger, 0, gapStart);
+        System.arraycopy(buffer, gapEnd, bigger, bigger.length - tailLength, tailLength);
+        gapEnd = bigger.length - tailLength;
+        buffer = bigger;
+    }
+
+    /**
+     * Translates a position into an array index, skipping the gap.
+     */
+    private int index(int position) {
+        return position < gapStart ? position : position + (gapEnd - gapStart);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) buffer[index];
+    }
+}
@@ -0,0 +1,265 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.function.Consumer;
+
+/**
+ * The {@code ForgeIntrusiveDual} class is a doubly linked list whose elements carry their own
+ * links by extending {@link IntrusiveNode}. Unlike {@link ForgeDual}, no node is allocated per
+ * element, and because every element knows the list that owns it, removing or checking a known
+ * element is O(1) with no search.
+ * <p>
+ * An element can belong to at most one intrusive list at a time; inserting an element that is
+ * already linked fails.
+ *
+ * @param <E> The type of elements stored in the list.
+ */
+public class ForgeIntrusiveDual<E extends IntrusiveNode<E>> {
+    private E head, tail;
+    private int size;
+
+    /**
+     * Constructs an empty intrusive list.
+     */
+    public ForgeIntrusiveDual() {
+        head = tail = null;
+        size = 0;
+    }
+
+    /**
+     * Inserts an element at the beginning of the list.
+     *
+     * @param element The element to insert.
+     * @return {@code true} if the insertion was successful, {@code false} if the element is
+     *         {@code null} or already linked.
+     */
+    public boolean insertAtStart(E element) {
+        if (!isFree(element)) {
+            return false;
+        }
+        link(element, null, head);
+        return true;
+    }
+
+    /**
+     * Inserts an element at the end of the list.
+     *
+     * @param element The element to insert.
+     * @return {@code true} if the insertion was successful, {@code false} if the element is
+     *         {@code null} or already linked.
+     */
+    public boolean insertAtEnd(E element) {
+        if (!isFree(element)) {
+            return false;
+        }
+        link(element, tail, null);
+        return true;
+    }
+
+    /**
+     * Inserts an element right after a reference element of this list, in O(1).
+     *
+     * @param element   The element to insert.
+     * @param reference The element of this list after which to insert.
+     * @return {@code true} if the insertion was successful, {@code false} otherwise.
+     */
+    public boolean insertAfter(E element, E reference) {
+        if (!isFree(element) || !contains(reference)) {
+            return false;
+        }
+        link(element, reference, reference.getNext());
+        return true;
+    }
+
+    /**
+     * Inserts an element right before a reference element of this list, in O(1).
+     *
+     * @param element   The element to insert.
+     * @param reference The element of this list before which to insert.
+     * @return {@code true} if the insertion was successful, {@code false} otherwise.
+     */
+    public boolean insertBefore(E element, E reference) {
+        if (!isFree(element) || !contains(reference)) {
+            return false;
+        }
+        link(element, reference.getPrevious(), reference);
+        return true;
+    }
+
+    /**
+     * Removes the element at the start of the list.
+     *
+     * @return The removed element, or {@code null} if the list is empty.
+     */
+    public E removeHead() {
+        E element = head;
+        if (element != null) {
+            unlink(element);
+        }
+        return element;
+    }
+
+    /**
+     * Removes the element at the end of the list.
+     *
+     * @return The removed element, or {@code null} if the list is empty.
+     */
+    public E removeTail() {
+        E element = tail;
+        if (element != null) {
+            unlink(element);
+        }
+        return element;
+    }
+
+    /**
+     * Removes an element from the list in O(1).
+     *
+     * @param element The element to remove.
+     * @return {@code true} if the element was removed, {@code false} if it does not belong to this list.
+     */
+    public boolean removeElement(E element) {
+        if (!contains(element)) {
+            return false;
+        }
+        unlink(element);
+        return true;
+    }
+
+    /**
+     * Checks in O(1) if an element belongs to this list.
+     *
+     * @param element The element to check.
+     * @return {@code true} if the element is linked into this list, {@code false} otherwise.
+     */
+    public boolean contains(E element) {
+        return element != null && element.getOwner() == this;
+    }
+
+    /**
+     * Returns the first element without removing it.
+     *
+     * @return The first element, or {@code null} if the list is empty.
+     */
+    public E peekFirst() {
+        return head;
+    }
+
+    /**
+     * Returns the last element without removing it.
+     *
+     * @return The last element, or {@code null} if the list is empty.
+     */
+    public E peekLast() {
+        return tail;
+    }
+
+    /**
+     * Applies an action to every element from the first to the last. The action may remove
+     * the element it receives from the list.
+     *
+     * @param action The action to apply.
+     */
+    public void forEach(Consumer<? super E> action) {
+        E current = head;
+        while (current != null) {
+            E next = current.getNext();
+            action.accept(current);
+            current = next;
+        }
+    }
+
+    /**
+     * Applies an action to every element from the last to the first. The action may remove
+     * the element it receives from the list.
+     *
+     * @param action The action to apply.
+     */
+    public void forEachDescending(Consumer<? super E> action) {
+        E current = tail;
+        while (current != null) {
+            E previous = current.getPrevious();
+            action.accept(current);
+            current = previous;
+        }
+    }
+
+    /**
+     * Prints the list elements in ascending order.
+     */
+    public void printListAscending() {
+        forEach(System.out::println);
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return The number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return {@code true} if the list is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Removes every element, leaving them free to join another list.
+     */
+    public void clear() {
+        while (head != null) {
+            unlink(head);
+        }
+    }
+
+    private static boolean isFree(IntrusiveNode<?> element) {
+        return element != null && !element.isLinked();
+    }
+
+    /**
+     * Links a free element between two neighbours of this list.
+     */
+    private void link(E element, E previous, E next) {
+        element.setPrevious(previous);
+        element.setNext(next);
+        element.setOwner(this);
+        if (previous == null) {
+            head = element;
+        } else {
+            previous.setNext(element);
+        }
+        if (next == null) {
+            tail = element;
+        } else {
+            next.setPrevious(element);
+        }
+        size++;
+    }
+
+    /**
+     * Unlinks an element of this list and releases it.
+     */
+    private void unlink(E element) {
+        E previous = element.getPrevious();
+        E next = element.getNext();
+        if (previous == null) {
+            head = next;
+        } else {
+            previous.setNext(next);
+        }
+        if (next == null) {
+            tail = previous;
+        } else {
+            next.setPrevious(previous);
+        }
+        element.setPrevious(null);
+        element.setNext(null);
+        element.setOwner(null);
+        size--;
+    }
+}
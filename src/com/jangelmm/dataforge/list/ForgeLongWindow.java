@@ -0,0 +1,287 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.function.LongSupplier;
+
+/**
+ * ForgeLongWindow is a sliding window over {@code long} samples, kept in a ring in the
+ * {@link ForgeRing} family, that maintains its sum, minimum, maximum and average incrementally.
+ * The sum is an exact running sum and the extremes come from monotonic deques, so every
+ * insertion, eviction and query costs O(1) amortized and no sample is boxed.
+ * <p>
+ * A window is either count-based (the last N samples) or time-based (the samples whose
+ * timestamp lies within a span of the newest time). Time-based windows read a pluggable clock
+ * when no explicit timestamp is given and before answering queries.
+ * See {@link ForgeDoubleWindow} for the {@code double} specialization.
+ */
+public class ForgeLongWindow {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxCount;
+    private final long span;
+    private final LongSupplier clock;
+
+    private long[] values;
+    private long[] times;
+    private int head;
+    private int size;
+    private long firstSequence;
+    private long lastTime;
+
+    private long[] minDeque;
+    private int minHead, minSize;
+    private long[] maxDeque;
+    private int maxHead, maxSize;
+
+    private long sum;
+
+    private ForgeLongWindow(int maxCount, long span, LongSupplier clock, int capacity) {
+        this.maxCount = maxCount;
+        this.span = span;
+        this.clock = clock;
+        values = new long[capacity];
+        times = new long[capacity];
+        minDeque = new long[capacity];
+        maxDeque = new long[capacity];
+        lastTime = Long.MIN_VALUE;
+    }
+
+    /**
+     * Creates a window over the last {@code count} samples.
+     *
+     * @param count the number of samples in the window
+     * @return the new window
+     * @throws IllegalArgumentException if the count is not positive
+     */
+    public static ForgeLongWindow ofCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        }
+        return new ForgeLongWindow(count, Long.MAX_VALUE, null, count);
+    }
+
+    /**
+     * Creates a window over the samples of the last {@code span} time units. A sample with
+     * timestamp {@code t} leaves the window once the current time reaches {@code t + span}.
+     *
+     * @param span  the length of the window, in the units of the clock
+     * @param clock the source of the current time, for example {@code System::nanoTime}
+     * @return the new window
+     * @throws IllegalArgumentException if the span is not positive or the clock is null
+     */
+    public static ForgeLongWindow ofTime(long span, LongSupplier clock) {
+        if (span <= 0 || clock == null) {
+            throw new IllegalArgumentException("A time window needs a positive span and a clock");
+        }
+        return new ForgeLongWindow(Integer.MAX_VALUE, span, clock, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a sample, evicting the samples that fall out of the window.
+     * Time-based windows stamp the sample with the current time of the clock.
+     *
+     * @param value the sample
+     * @return true if the sample was added
+     */
+    public boolean add(long value) {
+        return add(clock == null ? lastTime : clock.getAsLong(), value);
+    }
+
+    /**
+     * Adds a sample with an explicit timestamp, evicting the samples that fall out of the window.
+     * Timestamps must not decrease; an older timestamp is treated as the newest one seen.
+     *
+     * @param timestamp the time of the sample
+     * @param value     the sample
+     * @return true if the sample was added
+     */
+    public boolean add(long timestamp, long value) {
+        timestamp = Math.max(timestamp, lastTime);
+        lastTime = timestamp;
+        if (clock != null) {
+            expire(timestamp);
+        } else if (size == maxCount) {
+            evictOldest();
+        }
+        if (size == values.length) {
+            grow();
+        }
+        int index = slot(size);
+        values[index] = value;
+        times[index] = timestamp;
+        long sequence = firstSequence + size;
+        size++;
+        sum += value;
+
+        while (minSize > 0 && valueOf(minDeque[backIndex(minHead, minSize)]) >= value) {
+            minSize--;
+        }
+        minDeque[backIndex(minHead, minSize + 1)] = sequence;
+        minSize++;
+        while (maxSize > 0 && valueOf(maxDeque[backIndex(maxHead, maxSize)]) <= value) {
+            maxSize--;
+        }
+        maxDeque[backIndex(maxHead, maxSize + 1)] = sequence;
+        maxSize++;
+        return true;
+    }
+
+    /**
+     * Evicts the samples that are out of the window at the given time.
+     * Only meaningful for time-based windows.
+     *
+     * @param now the current time
+     */
+    public void advanceTo(long now) {
+        if (clock != null) {
+            lastTime = Math.max(lastTime, now);
+            expire(lastTime);
+        }
+    }
+
+    /**
+     * Returns the sum of the samples in the window.
+     *
+     * @return the sum, or 0 if the window is empty
+     */
+    public long sum() {
+        refresh();
+        return sum;
+    }
+
+    /**
+     * Returns the smallest sample in the window.
+     *
+     * @return the minimum, or {@link Long#MAX_VALUE} if the window is empty
+     */
+    public long min() {
+        refresh();
+        return minSize == 0 ? Long.MAX_VALUE : valueOf(minDeque[minHead]);
+    }
+
+    /**
+     * Returns the largest sample in the window.
+     *
+     * @return the maximum, or {@link Long#MIN_VALUE} if the window is empty
+     */
+    public long max() {
+        refresh();
+        return maxSize == 0 ? Long.MIN_VALUE : valueOf(maxDeque[maxHead]);
+    }
+
+    /**
+     * Returns the average of the samples in the window.
+     *
+     * @return the average, or NaN if the window is empty
+     */
+    public double average() {
+        refresh();
+        return size == 0 ? Double.NaN : (double) sum / size;
+    }
+
+    /**
+     * Returns the number of samples in the window.
+     *
+     * @return the number of samples
+     */
+    public int size() {
+        refresh();
+        return size;
+    }
+
+    /**
+     * Checks if the window is empty.
+     *
+     * @return true if the window is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes every sample from the window.
+     */
+    public void clear() {
+        head = size = 0;
+        minHead = minSize = 0;
+        maxHead = maxSize = 0;
+        sum = 0;
+    }
+
+    /**
+     * Brings a time-based window up to date with its clock.
+     */
+    private void refresh() {
+        if (clock != null) {
+            advanceTo(clock.getAsLong());
+        }
+    }
+
+    private void expire(long now) {
+        while (size > 0 && now - times[head] >= span) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        sum -= values[head];
+        if (minSize > 0 && minDeque[minHead] == firstSequence) {
+            minHead = nextIndex(minHead);
+            minSize--;
+        }
+        if (maxSize > 0 && maxDeque[maxHead] == firstSequence) {
+            maxHead = nextIndex(maxHead);
+            maxSize--;
+        }
+        head = nextIndex(head);
+        firstSequence++;
+        size--;
+    }
+
+    private void grow() {
+        int capacity = values.length * 2;
+        long[] newValues = new long[capacity];
+        long[] newTimes = new long[capacity];
+        for (int i = 0; i < size; i++) {
+            newValues[i] = values[slot(i)];
+            newTimes[i] = times[slot(i)];
+        }
+        values = newValues;
+        times = newTimes;
+        head = 0;
+        minDeque = unwrap(minDeque, minHead, minSize, capacity);
+        minHead = 0;
+        maxDeque = unwrap(maxDeque, maxHead, maxSize, capacity);
+        maxHead = 0;
+    }
+
+    private static long[] unwrap(long[] deque, int dequeHead, int dequeSize, int capacity) {
+        long[] result = new long[capacity];
+        for (int i = 0; i < dequeSize; i++) {
+            int index = dequeHead + i;
+            result[i] = deque[index >= deque.length ? index - deque.length : index];
+        }
+        return result;
+    }
+
+    private long valueOf(long sequence) {
+        return values[slot((int) (sequence - firstSequence))];
+    }
+
+    private int slot(int position) {
+        int index = head + position;
+        return index >= values.length ? index - values.length : index;
+    }
+
+    private int nextIndex(int index) {
+        return index + 1 == values.length ? 0 : index + 1;
+    }
+
+    /**
+     * Returns the array index of the last element of a deque holding {@code count} elements.
+     */
+    private int backIndex(int dequeHead, int count) {
+        int index = dequeHead + count - 1;
+        return index >= values.length ? index - values.length : index;
+    }
+}
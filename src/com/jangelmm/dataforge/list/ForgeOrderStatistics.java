@@ -0,0 +1,316 @@
+package com.jangelmm.dataforge.list;
+
+/**
+ * ForgeOrderStatistics keeps a sorted multiset, like {@link ForgeSequence}, and answers exact
+ * order-statistic queries (select by rank, rank of a value, quantiles and the median) in
+ * O(log n) expected time.
+ * Elements are held in a randomized treap whose nodes carry the size of their subtree, so the
+ * structure is maintained incrementally instead of being walked on every query.
+ * For bounded-memory approximate quantiles see {@link ForgeQuantileSketch}.
+ *
+ * @param <T> the type of elements in this structure
+ */
+public class ForgeOrderStatistics<T extends Comparable<T>> {
+
+    private Node<T> root;
+    private int seed;
+
+    /**
+     * Constructs an empty ForgeOrderStatistics.
+     */
+    public ForgeOrderStatistics() {
+        root = null;
+        seed = 0x2545F491;
+    }
+
+    /**
+     * Inserts an occurrence of an element.
+     *
+     * @param element the element to be added
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insert(T element) {
+        if (element == null) {
+            return false;
+        }
+        root = insert(root, element);
+        return true;
+    }
+
+    private Node<T> insert(Node<T> node, T element) {
+        if (node == null) {
+            return new Node<>(element, nextPriority());
+        }
+        if (element.compareTo(node.data) < 0) {
+            node.left = insert(node.left, element);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, element);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Removes one occurrence of an element.
+     *
+     * @param element the element to remove
+     * @return true if an occurrence was removed, false if the element was not found
+     */
+    public boolean remove(T element) {
+        if (element == null || !contains(element)) {
+            return false;
+        }
+        root = remove(root, element);
+        return true;
+    }
+
+    private Node<T> remove(Node<T> node, T element) {
+        int cmp = element.compareTo(node.data);
+        if (cmp < 0) {
+            node.left = remove(node.left, element);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, element);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Merges two treaps where every element of {@code left} precedes every element of {@code right}.
+     */
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Returns the element with the given rank, that is, the element that would be at that
+     * position in the sorted sequence.
+     *
+     * @param rank the zero-based rank
+     * @return the element with that rank, or null if the rank is out of range
+     */
+    public T select(int rank) {
+        if (rank < 0 || rank >= size()) {
+            return null;
+        }
+        Node<T> current = root;
+        while (true) {
+            int leftSize = size(current.left);
+            if (rank < leftSize) {
+                current = current.left;
+            } else if (rank == leftSize) {
+                return current.data;
+            } else {
+                rank -= leftSize + 1;
+                current = current.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of stored elements strictly smaller than the given value.
+     *
+     * @param value the value to rank
+     * @return the rank of the value, or -1 if the value is null
+     */
+    public int rank(T value) {
+        if (value == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node<T> current = root;
+        while (current != null) {
+            if (value.compareTo(current.data) <= 0) {
+                current = current.left;
+            } else {
+                rank += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the q-quantile using the nearest-rank definition:
+     * the smallest element such that at least {@code q * size()} elements are less than or equal to it.
+     *
+     * @param q the quantile, between 0 and 1 (for example 0.99 for p99)
+     * @return the quantile, or null if the structure is empty or q is out of range
+     */
+    public T quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0) || root == null) {
+            return null;
+        }
+        int rank = (int) Math.ceil(q * size()) - 1;
+        return select(Math.max(rank, 0));
+    }
+
+    /**
+     * Returns the lower median of the stored elements.
+     *
+     * @return the median, or null if the structure is empty
+     */
+    public T median() {
+        return select((size() - 1) / 2);
+    }
+
+    /**
+     * Returns the smallest element.
+     *
+     * @return the smallest element, or null if the structure is empty
+     */
+    public T min() {
+        return select(0);
+    }
+
+    /**
+     * Returns the largest element.
+     *
+     * @return the largest element, or null if the structure is empty
+     */
+    public T max() {
+        return select(size() - 1);
+    }
+
+    /**
+     * Checks if an element is present.
+     *
+     * @param element the element to search for
+     * @return true if the element is found, false otherwise
+     */
+    public boolean contains(T element) {
+        if (element == null) {
+            return false;
+        }
+        Node<T> current = root;
+        while (current != null) {
+            int cmp = element.compareTo(current.data);
+            if (cmp == 0) {
+                return true;
+            }
+            current = cmp < 0 ? current.left : current.right;
+        }
+        return false;
+    }
+
+    /**
+     * Adds every element of another structure to this one.
+     * The other structure is left unchanged; both must not be modified concurrently.
+     *
+     * @param other the structure whose elements are added
+     */
+    public void merge(ForgeOrderStatistics<T> other) {
+        if (other == null || other == this) {
+            return;
+        }
+        for (int i = 0; i < other.size(); i++) {
+            insert(other.select(i));
+        }
+    }
+
+    /**
+     * Returns the number of stored elements.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Checks if the structure is empty.
+     *
+     * @return true if the structure is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> leftChild = node.left;
+        node.left = leftChild.right;
+        leftChild.right = node;
+        update(node);
+        update(leftChild);
+        return leftChild;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> rightChild = node.right;
+        node.right = rightChild.left;
+        rightChild.left = node;
+        update(node);
+        update(rightChild);
+        return rightChild;
+    }
+
+    private void update(Node<T> node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Xorshift generator for treap priorities.
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Node represents a single element of the treap.
+     *
+     * @param <T> the type of element held by the Node
+     */
+    private static class Node<T> {
+        private final T data;
+        private final int priority;
+        private int size;
+        private Node<T> left, right;
+
+        /**
+         * Constructs a leaf Node with the given data and priority.
+         *
+         * @param data     the data for the node
+         * @param priority the heap priority of the node
+         */
+        Node(T data, int priority) {
+            this.data = data;
+            this.priority = priority;
+            this.size = 1;
+        }
+    }
+}
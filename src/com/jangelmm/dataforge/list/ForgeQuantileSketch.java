@@ -0,0 +1,310 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.Arrays;
+
+/**
+ * ForgeQuantileSketch is a streaming summary of {@code double} values that answers approximate
+ * quantile and rank queries using bounded memory.
+ * It follows the KLL sketch (Karnin, Lang and Liberty): values enter a stack of compactors,
+ * and a full compactor sorts itself and promotes every other value, chosen at random, to the
+ * next level where each value weighs twice as much. Memory stays O(k) regardless of the stream
+ * length, and two sketches can be merged, for example to combine per-thread summaries.
+ * For exact answers see {@link ForgeOrderStatistics}.
+ */
+public class ForgeQuantileSketch {
+
+    /**
+     * The default accuracy parameter; yields a rank error of roughly 1.65 / k with high probability.
+     */
+    public static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private double[][] levels;
+    private int[] lengths;
+    private int height;
+    private int retained;
+    private int maxRetained;
+    private long count;
+    private double min, max;
+    private long seed;
+
+    /**
+     * Constructs an empty sketch with the default accuracy parameter.
+     */
+    public ForgeQuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructs an empty sketch.
+     *
+     * @param k the accuracy parameter; larger values use more memory and give smaller errors
+     * @throws IllegalArgumentException if k is smaller than 8
+     */
+    public ForgeQuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8: " + k);
+        }
+        this.k = k;
+        this.levels = new double[4][];
+        this.lengths = new int[4];
+        this.height = 0;
+        this.count = 0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        this.seed = 0x9E3779B97F4A7C15L;
+        grow();
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the value to be added
+     * @return true if the value was added, false if it was NaN
+     */
+    public boolean insert(double value) {
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        if (count == 0) {
+            min = max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        append(0, value);
+        retained++;
+        count++;
+        if (retained >= maxRetained) {
+            compress();
+        }
+        return true;
+    }
+
+    /**
+     * Returns an approximation of the q-quantile.
+     * The extreme quantiles 0 and 1 are exact.
+     *
+     * @param q the quantile, between 0 and 1 (for example 0.99 for p99)
+     * @return the approximate quantile, or NaN if the sketch is empty or q is out of range
+     */
+    public double quantile(double q) {
+        if (!(q >= 0.0 && q <= 1.0) || count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0.0) {
+            return min;
+        }
+        if (q == 1.0) {
+            return max;
+        }
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        sortedItems(values, weights);
+        long target = (long) Math.ceil(q * count);
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns an approximation of the median.
+     *
+     * @return the approximate median, or NaN if the sketch is empty
+     */
+    public double median() {
+        return quantile(0.5);
+    }
+
+    /**
+     * Returns an approximation of the fraction of values less than or equal to the given value.
+     *
+     * @param value the value to rank
+     * @return the normalized rank between 0 and 1, or NaN if the sketch is empty
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long weight = 0;
+        for (int h = 0; h < height; h++) {
+            double[] level = levels[h];
+            for (int i = 0; i < lengths[h]; i++) {
+                if (level[i] <= value) {
+                    weight += 1L << h;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    /**
+     * Merges another sketch into this one. The other sketch is left unchanged.
+     *
+     * @param other the sketch to merge
+     */
+    public void merge(ForgeQuantileSketch other) {
+        if (other == null || other == this || other.count == 0) {
+            return;
+        }
+        while (height < other.height) {
+            grow();
+        }
+        for (int h = 0; h < other.height; h++) {
+            for (int i = 0; i < other.lengths[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        retained += other.retained;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Returns the number of values added to the sketch, including merged ones.
+     *
+     * @return the number of values summarized
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of values physically retained by the sketch.
+     *
+     * @return the number of retained values
+     */
+    public int retained() {
+        return retained;
+    }
+
+    /**
+     * Returns the exact smallest value added.
+     *
+     * @return the minimum, or NaN if the sketch is empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Returns the exact largest value added.
+     *
+     * @return the maximum, or NaN if the sketch is empty
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Checks if the sketch is empty.
+     *
+     * @return true if no value was added, false otherwise
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Compacts the lowest level that reached its capacity, promoting half of its values.
+     */
+    private void compress() {
+        for (int h = 0; h < height; h++) {
+            if (lengths[h] >= capacity(h)) {
+                if (h + 1 >= height) {
+                    grow();
+                }
+                double[] level = levels[h];
+                int length = lengths[h];
+                Arrays.sort(level, 0, length);
+                int offset = nextBit();
+                int kept = length & 1;  // With an odd length the smallest value stays at this level
+                for (int i = kept + offset; i < length; i += 2) {
+                    append(h + 1, level[i]);
+                }
+                lengths[h] = kept;
+                retained -= (length - kept) / 2;
+                return;
+            }
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = height - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_DECAY, depth) * k) + 1;
+    }
+
+    private void grow() {
+        if (height == levels.length) {
+            levels = Arrays.copyOf(levels, height * 2);
+            lengths = Arrays.copyOf(lengths, height * 2);
+        }
+        levels[height] = new double[8];
+        lengths[height] = 0;
+        height++;
+        maxRetained = 0;
+        for (int h = 0; h < height; h++) {
+            maxRetained += capacity(h);
+        }
+    }
+
+    private void append(int level, double value) {
+        if (lengths[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], lengths[level] * 2);
+        }
+        levels[level][lengths[level]++] = value;
+    }
+
+    /**
+     * Fills the arrays with every retained value and its weight, sorted by value.
+     * Each level is sorted on its own and then merged into the values gathered so far.
+     */
+    private void sortedItems(double[] values, long[] weights) {
+        double[] scratchValues = new double[values.length];
+        long[] scratchWeights = new long[weights.length];
+        int n = 0;
+        for (int h = 0; h < height; h++) {
+            int length = lengths[h];
+            if (length == 0) {
+                continue;
+            }
+            double[] level = Arrays.copyOf(levels[h], length);
+            Arrays.sort(level);
+            long weight = 1L << h;
+            int i = 0, j = 0, m = 0;
+            while (i < n || j < length) {
+                if (j == length || (i < n && values[i] <= level[j])) {
+                    scratchValues[m] = values[i];
+                    scratchWeights[m++] = weights[i++];
+                } else {
+                    scratchValues[m] = level[j++];
+                    scratchWeights[m++] = weight;
+                }
+            }
+            System.arraycopy(scratchValues, 0, values, 0, m);
+            System.arraycopy(scratchWeights, 0, weights, 0, m);
+            n = m;
+        }
+    }
+
+    /**
+     * Xorshift generator for the compaction coin flips.
+     */
+    private int nextBit() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) (seed >>> 63);
+    }
+}
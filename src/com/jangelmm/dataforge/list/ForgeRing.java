@@ -1,16 +1,24 @@
 package com.jangelmm.dataforge.list;
 
 import com.jangelmm.dataforge.basics.Node;
+import java.util.function.ToIntFunction;
 
 /**
  * ForgeRing is a circular singly linked list that supports generic types.
  * It provides methods to insert, remove, search, and print elements.
+ * It also keeps a rotating cursor for round-robin use: {@link #current()}, {@link #advance()},
+ * {@link #removeCurrent()} and {@link #insertAfterCurrent(Object)} run in O(1), and
+ * advancing never allocates.
  *
  * @param <T> the type of elements in this list
  */
 public class ForgeRing<T> {
     private Node<T> head;
     private Node<T> tail;
+    private Node<T> cursor;
+    private Node<T> beforeCursor;
+    private int remainingVisits;
+    private ToIntFunction<? super T> weigher;
 
     /**
      * Constructs an empty ForgeRing.
@@ -18,6 +26,9 @@ public class ForgeRing<T> {
     public ForgeRing() {
         head = null;
         tail = null;
+        cursor = null;
+        beforeCursor = null;
+        weigher = null;
     }
 
     /**
@@ -37,6 +48,9 @@ public class ForgeRing<T> {
         } else { // When there are existing nodes
             head = newNode;
             tail.setNext(head);
+            if (beforeCursor == tail) { // The new head now precedes the cursor
+                beforeCursor = newNode;
+            }
         }
         return true;
     }
@@ -54,9 +68,7 @@ public class ForgeRing<T> {
         if (head == null) { // If the list is empty
             return insertAtBeginning(element);
         }
-        Node<T> newNode = new Node<>(element, head);
-        tail.setNext(newNode);
-        tail = newNode;
+        linkAfter(tail, new Node<>(element, head));
         return true;
     }
 
@@ -70,12 +82,7 @@ public class ForgeRing<T> {
             return null;
         }
         T data = head.getData();
-        if (head == tail) { // If there's only one element
-            head = tail = null;
-        } else { // When there are more elements
-            head = head.getNext();
-            tail.setNext(head);
-        }
+        unlink(tail, head);
         return data;
     }
 
@@ -89,16 +96,14 @@ public class ForgeRing<T> {
             return null;
         }
         T data = tail.getData();
-        if (head == tail) { // If there's only one element
-            head = tail = null;
-        } else { // When there are more elements
-            Node<T> current = head;
+        Node<T> current = tail;
+        if (head != tail) { // When there are more elements
+            current = head;
             while (current.getNext() != tail) {
                 current = current.getNext();
             }
-            current.setNext(head);
-            tail = current;
         }
+        unlink(current, tail);
         return data;
     }
 
@@ -113,18 +118,14 @@ public class ForgeRing<T> {
         if (position < 0 || element == null) {
             return false;
         }
-        if (position == 0) {
+        if (position == 0 || head == null) {
             return insertAtBeginning(element);
         }
         Node<T> current = head;
         for (int i = 1; i < position && current.getNext() != head; i++) {
             current = current.getNext();
         }
-        Node<T> newNode = new Node<>(element, current.getNext());
-        current.setNext(newNode);
-        if (newNode.getNext() == head) {
-            tail = newNode;
-        }
+        linkAfter(current, new Node<>(element, current.getNext()));
         return true;
     }
 
@@ -148,7 +149,7 @@ public class ForgeRing<T> {
             current = current.getNext();
         }
         if (current != tail) {
-            previous.setNext(current.getNext());
+            unlink(previous, current);
             return current.getData();
         } else if (current == tail) {
             return removeLast();
@@ -174,8 +175,7 @@ public class ForgeRing<T> {
         Node<T> previous = tail;
         do {
             if (current.getData().equals(reference)) {
-                Node<T> newNode = new Node<>(element, current);
-                previous.setNext(newNode);
+                linkAfter(previous, new Node<>(element, current));
                 return true;
             }
             previous = current;
@@ -200,7 +200,7 @@ public class ForgeRing<T> {
         do {
             if (current.getData().equals(reference)) {
                 T data = previous.getData();
-                prePrevious.setNext(current);
+                unlink(prePrevious, previous);
                 return data;
             }
             prePrevious = previous;
@@ -224,11 +224,7 @@ public class ForgeRing<T> {
         Node<T> current = head;
         do {
             if (current.getData().equals(reference)) {
-                Node<T> newNode = new Node<>(element, current.getNext());
-                current.setNext(newNode);
-                if (current == tail) {
-                    tail = newNode;
-                }
+                linkAfter(current, new Node<>(element, current.getNext()));
                 return true;
             }
             current = current.getNext();
@@ -250,4 +246,154 @@ public class ForgeRing<T> {
             } while (current != head);
         }
     }
+
+    /**
+     * Returns the element under the cursor. The cursor starts at the first element.
+     *
+     * @return the current element, or null if the ring is empty
+     */
+    public T current() {
+        if (!ensureCursor()) {
+            return null;
+        }
+        return cursor.getData();
+    }
+
+    /**
+     * Moves the cursor to the next element and returns it.
+     * With a weigher set, an element stays under the cursor for as many calls as its weight.
+     *
+     * @return the new current element, or null if the ring is empty
+     */
+    public T advance() {
+        if (!ensureCursor()) {
+            return null;
+        }
+        if (--remainingVisits > 0) { // The element still has visits left
+            return cursor.getData();
+        }
+        beforeCursor = cursor;
+        cursor = cursor.getNext();
+        remainingVisits = weightOf(cursor);
+        return cursor.getData();
+    }
+
+    /**
+     * Removes the element under the cursor and moves the cursor to the following element.
+     *
+     * @return the removed element, or null if the ring is empty
+     */
+    public T removeCurrent() {
+        if (!ensureCursor()) {
+            return null;
+        }
+        T data = cursor.getData();
+        unlink(beforeCursor, cursor);
+        return data;
+    }
+
+    /**
+     * Inserts an element right after the one under the cursor.
+     * The inserted element becomes the next one reached by {@link #advance()}.
+     *
+     * @param element the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAfterCurrent(T element) {
+        if (element == null) {
+            return false;
+        }
+        if (!ensureCursor()) {
+            return insertAtBeginning(element);
+        }
+        linkAfter(cursor, new Node<>(element, cursor.getNext()));
+        return true;
+    }
+
+    /**
+     * Moves the cursor back to the first element.
+     */
+    public void resetCursor() {
+        cursor = beforeCursor = null;
+    }
+
+    /**
+     * Sets the function that gives each element its weight for weighted rotation.
+     * An element is returned by that many consecutive calls to {@link #advance()};
+     * weights below 1 count as 1. A null weigher gives every element a weight of 1.
+     *
+     * @param weigher the weight function, or null for plain round-robin
+     */
+    public void setWeigher(ToIntFunction<? super T> weigher) {
+        this.weigher = weigher;
+        if (cursor != null) {
+            remainingVisits = weightOf(cursor);
+        }
+    }
+
+    /**
+     * Places the cursor on the first element if it is not placed yet.
+     *
+     * @return true if the cursor is on an element, false if the ring is empty
+     */
+    private boolean ensureCursor() {
+        if (head == null) {
+            return false;
+        }
+        if (cursor == null) {
+            cursor = head;
+            beforeCursor = tail;
+            remainingVisits = weightOf(cursor);
+        }
+        return true;
+    }
+
+    private int weightOf(Node<T> node) {
+        return weigher == null ? 1 : Math.max(1, weigher.applyAsInt(node.getData()));
+    }
+
+    /**
+     * Links a new node right after {@code previous}, keeping the tail and the cursor valid.
+     *
+     * @param previous the node after which the new node is linked
+     * @param newNode the node to link
+     */
+    private void linkAfter(Node<T> previous, Node<T> newNode) {
+        newNode.setNext(previous.getNext());
+        previous.setNext(newNode);
+        if (previous == tail) {
+            tail = newNode;
+        }
+        if (previous == beforeCursor) { // The new node now precedes the cursor
+            beforeCursor = newNode;
+        }
+    }
+
+    /**
+     * Unlinks {@code node}, whose predecessor is {@code previous}, keeping the head, the tail
+     * and the cursor valid. A removed cursor moves to the following element.
+     *
+     * @param previous the node before the one being removed
+     * @param node the node to remove
+     */
+    private void unlink(Node<T> previous, Node<T> node) {
+        if (previous == node) { // If there's only one element
+            head = tail = null;
+            cursor = beforeCursor = null;
+            return;
+        }
+        previous.setNext(node.getNext());
+        if (node == head) {
+            head = node.getNext();
+        }
+        if (node == tail) {
+            tail = previous;
+        }
+        if (node == cursor) {
+            cursor = node.getNext();
+            remainingVisits = weightOf(cursor);
+        } else if (node == beforeCursor) {
+            beforeCursor = previous;
+        }
+    }
 }
@@ -0,0 +1,255 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.function.Consumer;
+
+/**
+ * ForgeRingBuffer is a fixed-capacity variant of {@link ForgeRing} backed by a circular array.
+ * Once the buffer is full, {@link #insertAtEnd(Object)} overwrites the oldest element, which
+ * makes it a "last N elements" buffer. Insertion and removal at both ends and indexed access
+ * are O(1), and no node is allocated per element.
+ *
+ * @param <T> the type of elements in this buffer
+ */
+public class ForgeRingBuffer<T> {
+    private final Object[] items;
+    private int head;
+    private int size;
+
+    /**
+     * Constructs an empty ForgeRingBuffer.
+     *
+     * @param capacity the maximum number of elements the buffer holds
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ForgeRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        items = new Object[capacity];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Inserts an element after the newest one. If the buffer is full, the oldest
+     * element is overwritten.
+     *
+     * @param element the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtEnd(T element) {
+        if (element == null) {
+            return false;
+        }
+        if (size == items.length) { // Overwrite the oldest element
+            items[head] = element;
+            head = slot(1);
+        } else {
+            items[slot(size)] = element;
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * Inserts an element before the oldest one. If the buffer is full, the newest
+     * element is overwritten.
+     *
+     * @param element the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtBeginning(T element) {
+        if (element == null) {
+            return false;
+        }
+        head = slot(items.length - 1);
+        items[head] = element;
+        if (size < items.length) {
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest element in the buffer.
+     *
+     * @return the oldest element, or null if the buffer is empty
+     */
+    public T removeFirst() {
+        if (size == 0) {
+            return null;
+        }
+        T data = elementAt(head);
+        items[head] = null;
+        head = slot(1);
+        size--;
+        return data;
+    }
+
+    /**
+     * Removes and returns the newest element in the buffer.
+     *
+     * @return the newest element, or null if the buffer is empty
+     */
+    public T removeLast() {
+        if (size == 0) {
+            return null;
+        }
+        int last = slot(size - 1);
+        T data = elementAt(last);
+        items[last] = null;
+        size--;
+        return data;
+    }
+
+    /**
+     * Returns the element at the given position, where 0 is the oldest element.
+     *
+     * @param position the position of the element
+     * @return the element, or null if the position is invalid
+     */
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            return null;
+        }
+        return elementAt(slot(position));
+    }
+
+    /**
+     * Returns the oldest element without removing it.
+     *
+     * @return the oldest element, or null if the buffer is empty
+     */
+    public T peekFirst() {
+        return get(0);
+    }
+
+    /**
+     * Returns the newest element without removing it.
+     *
+     * @return the newest element, or null if the buffer is empty
+     */
+    public T peekLast() {
+        return get(size - 1);
+    }
+
+    /**
+     * Checks if the buffer contains an element.
+     *
+     * @param element the element to search for
+     * @return true if the element is found, false otherwise
+     */
+    public boolean contains(T element) {
+        if (element == null) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (items[slot(i)].equals(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies an action to every element from the oldest to the newest, without allocating.
+     * The elements visited are the ones present when the call starts.
+     *
+     * @param action the action to apply
+     */
+    public void forEach(Consumer<? super T> action) {
+        int start = head;
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            int index = start + i;
+            if (index >= items.length) {
+                index -= items.length;
+            }
+            action.accept(elementAt(index));
+        }
+    }
+
+    /**
+     * Copies the elements, from the oldest to the newest, into the given array.
+     *
+     * @param destination the array that receives the elements
+     * @return the number of elements copied, limited by the length of the array
+     */
+    public int copyTo(T[] destination) {
+        int count = Math.min(size, destination.length);
+        int firstPart = Math.min(count, items.length - head);
+        System.arraycopy(items, head, destination, 0, firstPart);
+        System.arraycopy(items, 0, destination, firstPart, count - firstPart);
+        return count;
+    }
+
+    /**
+     * Returns the number of elements in the buffer.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of elements the buffer holds.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * Checks if the buffer is empty.
+     *
+     * @return true if the buffer is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the buffer is full, meaning the next insertion overwrites an element.
+     *
+     * @return true if the buffer is full, false otherwise
+     */
+    public boolean isFull() {
+        return size == items.length;
+    }
+
+    /**
+     * Removes all elements from the buffer.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            items[slot(i)] = null;
+        }
+        head = size = 0;
+    }
+
+    /**
+     * Prints all elements from the oldest to the newest.
+     */
+    public void printData() {
+        if (size == 0) {
+            System.out.println("No elements in the ring.");
+        } else {
+            forEach(System.out::println);
+        }
+    }
+
+    /**
+     * Translates a position relative to the oldest element into an array index.
+     */
+    private int slot(int position) {
+        int index = head + position;
+        return index >= items.length ? index - items.length : index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) items[index];
+    }
+}
@@ -0,0 +1,345 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ForgeRope is a sequence stored as a balanced tree of concatenations. Each leaf holds a chunk
+ * of up to 64 consecutive elements in an array and each inner node records the number of
+ * elements below it, so positional access, insertion and removal cost O(log n) anywhere in
+ * the sequence. The tree is kept height-balanced with AVL rotations.
+ * <p>
+ * It suits large sequences edited at scattered positions; see {@link ForgeGapBuffer} for
+ * small sequences whose edits cluster around a cursor.
+ *
+ * @param <T> the type of elements in this rope
+ */
+public class ForgeRope<T> {
+
+    private static final int CHUNK_SIZE = 64;
+
+    private Piece root;
+
+    /**
+     * Constructs an empty ForgeRope.
+     */
+    public ForgeRope() {
+        root = null;
+    }
+
+    /**
+     * Inserts an element at a position.
+     *
+     * @param position the position of the new element, between 0 and the size
+     * @param element  the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtPosition(int position, T element) {
+        if (element == null || position < 0 || position > size()) {
+            return false;
+        }
+        root = root == null ? Piece.leaf(element) : insert(root, position, element);
+        return true;
+    }
+
+    /**
+     * Inserts an element after the last one.
+     *
+     * @param element the element to be inserted
+     * @return true if the element was successfully inserted, false otherwise
+     */
+    public boolean insertAtEnd(T element) {
+        return insertAtPosition(size(), element);
+    }
+
+    /**
+     * Removes the element at a position.
+     *
+     * @param position the position of the element to remove
+     * @return the removed element, or null if the position is invalid
+     */
+    public T removeAtPosition(int position) {
+        if (position < 0 || position >= size()) {
+            return null;
+        }
+        T data = get(position);
+        root = remove(root, position);
+        return data;
+    }
+
+    /**
+     * Returns the element at a position.
+     *
+     * @param position the position of the element
+     * @return the element, or null if the position is invalid
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        if (position < 0 || position >= size()) {
+            return null;
+        }
+        Piece current = root;
+        while (current.items == null) {
+            if (position < current.left.size) {
+                current = current.left;
+            } else {
+                position -= current.left.size;
+                current = current.right;
+            }
+        }
+        return (T) current.items[position];
+    }
+
+    /**
+     * Replaces the element at a position.
+     *
+     * @param position the position of the element
+     * @param element  the new element
+     * @return the previous element, or null if the position or the element is invalid
+     */
+    @SuppressWarnings("unchecked")
+    public T set(int position, T element) {
+        if (element == null || position < 0 || position >= size()) {
+            return null;
+        }
+        Piece current = root;
+        while (current.items == null) {
+            if (position < current.left.size) {
+                current = current.left;
+            } else {
+                position -= current.left.size;
+                current = current.right;
+            }
+        }
+        T previous = (T) current.items[position];
+        current.items[position] = element;
+        return previous;
+    }
+
+    /**
+     * Returns the elements of a range, in order, in O(log n + k) for k elements.
+     *
+     * @param from the position of the first element, inclusive
+     * @param to   the position after the last element, exclusive
+     * @return a new list with the elements, or null if the range is invalid
+     */
+    public List<T> subList(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            return null;
+        }
+        List<T> result = new ArrayList<>(to - from);
+        if (from < to) {
+            collect(root, from, to, result);
+        }
+        return result;
+    }
+
+    /**
+     * Applies an action to every element in order.
+     *
+     * @param action the action to apply
+     */
+    public void forEach(Consumer<? super T> action) {
+        if (root != null) {
+            forEach(root, action);
+        }
+    }
+
+    /**
+     * Returns the number of elements in the rope.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * Checks if the rope is empty.
+     *
+     * @return true if the rope is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Removes all elements from the rope.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Prints all elements in order.
+     */
+    public void printData() {
+        if (root == null) {
+            System.out.println("No elements in the rope.");
+        } else {
+            forEach(System.out::println);
+        }
+    }
+
+    private Piece insert(Piece node, int position, T element) {
+        if (node.items != null) {
+            if (node.size < CHUNK_SIZE) {
+                System.arraycopy(node.items, position, node.items, position + 1, node.size - position);
+                node.items[position] = element;
+                node.size++;
+                return node;
+            }
+            Piece right = node.splitLeaf(); // Full chunk: halve it under a new inner node
+            Piece branch = Piece.branch(node, right);
+            return insert(branch, position, element);
+        }
+        if (position <= node.left.size) {
+            node.left = insert(node.left, position, element);
+        } else {
+            node.right = insert(node.right, position - node.left.size, element);
+        }
+        node.update();
+        return balance(node);
+    }
+
+    private Piece remove(Piece node, int position) {
+        if (node.items != null) {
+            node.size--;
+            System.arraycopy(node.items, position + 1, node.items, position, node.size - position);
+            node.items[node.size] = null;
+            return node.size == 0 ? null : node;
+        }
+        if (position < node.left.size) {
+            node.left = remove(node.left, position);
+        } else {
+            node.right = remove(node.right, position - node.left.size);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        if (node.left.items != null && node.right.items != null
+                && node.left.size + node.right.size <= CHUNK_SIZE / 2) { // Merge small neighbours
+            Piece merged = node.left;
+            System.arraycopy(node.right.items, 0, merged.items, merged.size, node.right.size);
+            merged.size += node.right.size;
+            return merged;
+        }
+        node.update();
+        return balance(node);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(Piece node, int from, int to, List<T> result) {
+        if (node.items != null) {
+            for (int i = from; i < to; i++) {
+                result.add((T) node.items[i]);
+            }
+            return;
+        }
+        int leftSize = node.left.size;
+        if (from < leftSize) {
+            collect(node.left, from, Math.min(to, leftSize), result);
+        }
+        if (to > leftSize) {
+            collect(node.right, Math.max(from - leftSize, 0), to - leftSize, result);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEach(Piece node, Consumer<? super T> action) {
+        if (node.items != null) {
+            for (int i = 0; i < node.size; i++) {
+                action.accept((T) node.items[i]);
+            }
+        } else {
+            forEach(node.left, action);
+            forEach(node.right, action);
+        }
+    }
+
+    private static Piece balance(Piece node) {
+        int factor = node.left.height - node.right.height;
+        if (factor > 1) {
+            if (node.left.left.height < node.left.right.height) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (node.right.right.height < node.right.left.height) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Piece rotateRight(Piece node) {
+        Piece pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static Piece rotateLeft(Piece node) {
+        Piece pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * A node of the rope: a leaf with a chunk of elements, or an inner node joining two
+     * subtrees. Leaves have height 0.
+     */
+    private static final class Piece {
+        private Object[] items;
+        private Piece left, right;
+        private int size;
+        private int height;
+
+        static Piece leaf(Object element) {
+            Piece leaf = new Piece();
+            leaf.items = new Object[CHUNK_SIZE];
+            leaf.items[0] = element;
+            leaf.size = 1;
+            return leaf;
+        }
+
+        static Piece branch(Piece left, Piece right) {
+            Piece branch = new Piece();
+            branch.left = left;
+            branch.right = right;
+            branch.update();
+            return branch;
+        }
+
+        /**
+         * Moves the upper half of a full leaf into a new leaf and returns it.
+         */
+        Piece splitLeaf() {
+            Piece upper = new Piece();
+            upper.items = new Object[CHUNK_SIZE];
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(items, half, upper.items, 0, upper.size);
+            Arrays.fill(items, half, size, null);
+            size = half;
+            return upper;
+        }
+
+        void update() {
+            size = left.size + right.size;
+            height = 1 + Math.max(left.height, right.height);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.jangelmm.dataforge.list;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * ForgeStealingDeque is a concurrent work-stealing deque in the style of Chase and Lev,
+ * the concurrent counterpart of the deque operations of {@link ForgeDual}.
+ * <p>
+ * A single owner thread pushes and pops at the bottom, which needs no CAS except when the
+ * last element is contended. Any number of thief threads steal from the top with a CAS.
+ * The elements live in a circular array that the owner doubles when it fills up; thieves
+ * that still read the old array see the same elements, so growing never blocks them.
+ * <p>
+ * {@link #push(Object)} and {@link #pop()} must only be called by the owner thread;
+ * {@link #steal()}, {@link #size()} and {@link #isEmpty()} may be called by any thread.
+ *
+ * @param <E> the type of elements in this deque
+ */
+public class ForgeStealingDeque<E> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final VarHandle TOP;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(ForgeStealingDeque.class, "top", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long top;
+    private volatile long bottom;
+    private volatile Object[] array;
+
+    /**
+     * Constructs an empty deque.
+     */
+    public ForgeStealingDeque() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty deque with room for the given number of elements before it grows.
+     *
+     * @param initialCapacity the initial capacity, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ForgeStealingDeque(int initialCapacity) {
+        if (initialCapacity <= 0 || initialCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + initialCapacity);
+        }
+        int capacity = initialCapacity == 1 ? 1 : Integer.highestOneBit(initialCapacity - 1) << 1;
+        array = new Object[capacity];
+    }
+
+    /**
+     * Pushes an element at the bottom. Owner thread only.
+     *
+     * @param element the element to push
+     * @return true if the element was pushed, false if it was null
+     */
+    public boolean push(E element) {
+        if (element == null) {
+            return false;
+        }
+        long b = bottom;
+        long t = top;
+        Object[] a = array;
+        if (b - t >= a.length) {
+            a = grow(a, t, b);
+        }
+        SLOT.setRelease(a, (int) b & (a.length - 1), element);
+        bottom = b + 1;
+        return true;
+    }
+
+    /**
+     * Pops the most recently pushed element from the bottom. Owner thread only.
+     *
+     * @return the element, or null if the deque is empty or a thief took the last element
+     */
+    @SuppressWarnings("unchecked")
+    public E pop() {
+        long b = bottom - 1;
+        Object[] a = array;
+        bottom = b; // Reserve the slot before reading top, so thieves see the claim
+        long t = top;
+        if (t > b) { // Empty
+            bottom = b + 1;
+            return null;
+        }
+        int index = (int) b & (a.length - 1);
+        E element = (E) SLOT.getAcquire(a, index);
+        if (t < b) { // More than one element: no thief can reach this slot
+            SLOT.setRelease(a, index, null);
+            return element;
+        }
+        if (!TOP.compareAndSet(this, t, t + 1)) { // Lost the race for the last element
+            element = null;
+        }
+        bottom = b + 1;
+        return element;
+    }
+
+    /**
+     * Steals the oldest element from the top. Any thread.
+     *
+     * @return the element, or null if the deque is empty or another thread won the race for it
+     */
+    @SuppressWarnings("unchecked")
+    public E steal() {
+        long t = top;
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        Object[] a = array;
+        E element = (E) SLOT.getAcquire(a, (int) t & (a.length - 1));
+        if (element == null || !TOP.compareAndSet(this, t, t + 1)) {
+            return null;
+        }
+        return element;
+    }
+
+    /**
+     * Returns an estimate of the number of elements, which may be stale under concurrency.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        long size = bottom - top;
+        return size < 0 ? 0 : (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks if the deque looks empty, which may be stale under concurrency.
+     *
+     * @return true if the deque is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return bottom - top <= 0;
+    }
+
+    /**
+     * Copies the live elements into an array twice as large and publishes it.
+     */
+    private Object[] grow(Object[] old, long t, long b) {
+        Object[] bigger = new Object[old.length << 1];
+        for (long i = t; i < b; i++) {
+            bigger[(int) i & (bigger.length - 1)] = old[(int) i & (old.length - 1)];
+        }
+        array = bigger;
+        return bigger;
+    }
+}
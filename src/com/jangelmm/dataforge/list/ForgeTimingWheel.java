@@ -0,0 +1,280 @@
+package com.jangelmm.dataforge.list;
+
+import java.util.function.LongSupplier;
+
+/**
+ * ForgeTimingWheel is a hashed hierarchical timing wheel for large numbers of timeouts.
+ * Each level is a ring of 64 slots in the {@link ForgeRing} family, and each slot is itself a
+ * circular doubly linked bucket of timeouts. Scheduling and cancelling are O(1); a timeout
+ * that is too far away for the lowest level waits on a coarser level and cascades down as the
+ * wheel turns, in the style of the classic Varghese and Lauck design.
+ * <p>
+ * Time comes from a pluggable clock and only moves when {@link #advance()} is called, which
+ * runs the tasks whose deadline has passed. Use {@link ManualClock} for deterministic tests.
+ * The wheel is not thread-safe: schedule, cancel and advance from the same thread.
+ */
+public class ForgeTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+
+    private final long tickDuration;
+    private final LongSupplier clock;
+    private final long startTime;
+    private final int levels;
+    private final Timeout[][] wheels;
+    private long tick;
+    private int pending;
+
+    /**
+     * Constructs a timing wheel with four levels, covering 2^24 ticks before timeouts are
+     * parked on the outermost slot.
+     *
+     * @param tickDuration the resolution of the wheel, in the units of the clock
+     * @param clock        the source of the current time
+     */
+    public ForgeTimingWheel(long tickDuration, LongSupplier clock) {
+        this(tickDuration, 4, clock);
+    }
+
+    /**
+     * Constructs a timing wheel.
+     *
+     * @param tickDuration the resolution of the wheel, in the units of the clock
+     * @param levels       the number of wheel levels, from 1 to 10
+     * @param clock        the source of the current time
+     * @throws IllegalArgumentException if an argument is out of range
+     */
+    public ForgeTimingWheel(long tickDuration, int levels, LongSupplier clock) {
+        if (tickDuration <= 0 || levels < 1 || levels > 10 || clock == null) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickDuration = tickDuration;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+        this.levels = levels;
+        this.wheels = new Timeout[levels][WHEEL_SIZE];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new Timeout(null, 0, null);
+            }
+        }
+        this.tick = 0;
+        this.pending = 0;
+    }
+
+    /**
+     * Schedules a task to run once the given delay has elapsed.
+     * The task runs during the first call to {@link #advance()} once its deadline, rounded up
+     * to a whole tick, has passed. A deadline on a tick the wheel already processed moves to
+     * the next tick.
+     *
+     * @param task  the task to run
+     * @param delay the delay, in the units of the clock; negative delays count as zero
+     * @return the handle of the timeout, or null if the task is null
+     */
+    public Timeout schedule(Runnable task, long delay) {
+        if (task == null) {
+            return null;
+        }
+        long elapsed = clock.getAsLong() - startTime + Math.max(delay, 0);
+        long deadlineTick = (elapsed + tickDuration - 1) / tickDuration;
+        Timeout timeout = new Timeout(task, deadlineTick, this);
+        place(timeout);
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel up to the current time of the clock, running every task that expired.
+     *
+     * @return the number of tasks that ran
+     */
+    public int advance() {
+        long nowTick = (clock.getAsLong() - startTime) / tickDuration;
+        int expired = 0;
+        while (tick <= nowTick) {
+            int index = (int) (tick & SLOT_MASK);
+            if (index == 0) { // The lowest level wrapped around: pull timeouts down a level
+                for (int level = 1; level < levels; level++) {
+                    int levelIndex = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                    cascade(wheels[level][levelIndex]);
+                    if (levelIndex != 0) {
+                        break;
+                    }
+                }
+            }
+            Timeout bucket = wheels[0][index];
+            while (bucket.next != bucket) {
+                Timeout timeout = bucket.next;
+                timeout.unlink();
+                if (timeout.deadlineTick > tick) { // Parked beyond the range of the wheel
+                    place(timeout);
+                    continue;
+                }
+                timeout.state = Timeout.EXPIRED;
+                pending--;
+                expired++;
+                timeout.task.run();
+            }
+            tick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the number of timeouts that are scheduled and not yet expired or cancelled.
+     *
+     * @return the number of pending timeouts
+     */
+    public int pending() {
+        return pending;
+    }
+
+    /**
+     * Moves every timeout of a bucket to the slot that matches its remaining time.
+     */
+    private void cascade(Timeout bucket) {
+        while (bucket.next != bucket) {
+            Timeout timeout = bucket.next;
+            timeout.unlink();
+            place(timeout);
+        }
+    }
+
+    /**
+     * Links a timeout into the slot of the lowest level whose range covers its deadline.
+     */
+    private void place(Timeout timeout) {
+        long expires = Math.max(timeout.deadlineTick, tick);
+        long remaining = expires - tick;
+        long range = 1L << (SLOT_BITS * levels);
+        if (remaining >= range) { // Park it on the farthest slot and place it again later
+            expires = tick + range - 1;
+            remaining = range - 1;
+        }
+        int level = 0;
+        while (remaining >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((expires >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timeout.linkBefore(wheels[level][slot]);
+    }
+
+    /**
+     * A scheduled task. It doubles as a node of the circular bucket it waits in,
+     * so cancelling unlinks it in O(1).
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private final ForgeTimingWheel wheel;
+        private Timeout previous, next;
+        private int state;
+
+        private Timeout(Runnable task, long deadlineTick, ForgeTimingWheel wheel) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            this.wheel = wheel;
+            this.previous = this.next = this;
+            this.state = PENDING;
+        }
+
+        /**
+         * Cancels the timeout so its task never runs.
+         *
+         * @return true if the timeout was cancelled, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (state != PENDING) {
+                return false;
+            }
+            state = CANCELLED;
+            unlink();
+            wheel.pending--;
+            return true;
+        }
+
+        /**
+         * Checks if the timeout was cancelled.
+         *
+         * @return true if the timeout was cancelled, false otherwise
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * Checks if the task of the timeout already ran.
+         *
+         * @return true if the timeout expired, false otherwise
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        /**
+         * Returns the tick at which the timeout expires, counted from the creation of the wheel.
+         *
+         * @return the deadline tick
+         */
+        public long getDeadlineTick() {
+            return deadlineTick;
+        }
+
+        private void linkBefore(Timeout bucket) {
+            previous = bucket.previous;
+            next = bucket;
+            bucket.previous.next = this;
+            bucket.previous = this;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = next = this;
+        }
+    }
+
+    /**
+     * A clock that only moves when told to, for deterministic tests of code built on the wheel.
+     */
+    public static final class ManualClock implements LongSupplier {
+        private long now;
+
+        /**
+         * Constructs a clock that starts at time 0.
+         */
+        public ManualClock() {
+            this.now = 0;
+        }
+
+        /**
+         * Moves the clock forward.
+         *
+         * @param amount the amount of time to add
+         */
+        public void advance(long amount) {
+            now += amount;
+        }
+
+        /**
+         * Sets the current time.
+         *
+         * @param time the new time
+         */
+        public void set(long time) {
+            now = time;
+        }
+
+        @Override
+        public long getAsLong() {
+            return now;
+        }
+    }
+}
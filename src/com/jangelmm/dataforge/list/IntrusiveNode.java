@@ -0,0 +1,60 @@
+package com.jangelmm.dataforge.list;
+
+/**
+ * The {@code IntrusiveNode} class holds the links of an element stored in a
+ * {@link ForgeIntrusiveDual}. Types that extend it carry their own previous and next
+ * references, so linking them into a list allocates no wrapper node, and the list that
+ * owns an element is known without searching.
+ * <p>
+ * An element can belong to at most one intrusive list at a time.
+ *
+ * @param <E> The type of the element, which is the extending type itself.
+ */
+public abstract class IntrusiveNode<E extends IntrusiveNode<E>> {
+    private E previous;
+    private E next;
+    private ForgeIntrusiveDual<E> owner;
+
+    /**
+     * Returns the previous element in the list that owns this element.
+     *
+     * @return The previous element, or {@code null} if this is the first element or it is not linked.
+     */
+    public E getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Returns the next element in the list that owns this element.
+     *
+     * @return The next element, or {@code null} if this is the last element or it is not linked.
+     */
+    public E getNext() {
+        return next;
+    }
+
+    /**
+     * Checks if this element is linked into a list.
+     *
+     * @return {@code true} if the element belongs to a list, {@code false} otherwise.
+     */
+    public boolean isLinked() {
+        return owner != null;
+    }
+
+    void setPrevious(E previous) {
+        this.previous = previous;
+    }
+
+    void setNext(E next) {
+        this.next = next;
+    }
+
+    ForgeIntrusiveDual<E> getOwner() {
+        return owner;
+    }
+
+    void setOwner(ForgeIntrusiveDual<E> owner) {
+        this.owner = owner;
+    }
+}
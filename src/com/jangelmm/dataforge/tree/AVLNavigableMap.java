@@ -0,0 +1,632 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * A live {@link NavigableMap} view of a key range of a {@link ForgeAVLTree}, in ascending or
+ * descending order. Nothing is copied: lookups go straight to the tree, and an iterator seeks
+ * the start of the range once and then walks the tree with an explicit stack, so visiting k
+ * entries costs O(log n + k). Changes made through the view are made on the tree.
+ * <p>
+ * Bounds are kept in ascending terms; a null bound means the range is open on that side, which
+ * is safe because the tree holds no null keys.
+ *
+ * @param <K> the type of keys maintained by the tree
+ * @param <V> the type of mapped values
+ */
+final class AVLNavigableMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private final ForgeAVLTree<K, V> tree;
+    private final K low;
+    private final boolean lowInclusive;
+    private final K high;
+    private final boolean highInclusive;
+    private final boolean descending;
+
+    AVLNavigableMap(ForgeAVLTree<K, V> tree, K low, boolean lowInclusive, K high, boolean highInclusive,
+                    boolean descending) {
+        this.tree = tree;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.high = high;
+        this.highInclusive = highInclusive;
+        this.descending = descending;
+    }
+
+    // Range checks, in ascending terms
+
+    private boolean tooLow(K key) {
+        if (low == null) {
+            return false;
+        }
+        int cmp = key.compareTo(low);
+        return cmp < 0 || (cmp == 0 && !lowInclusive);
+    }
+
+    private boolean tooHigh(K key) {
+        if (high == null) {
+            return false;
+        }
+        int cmp = key.compareTo(high);
+        return cmp > 0 || (cmp == 0 && !highInclusive);
+    }
+
+    private boolean inRange(K key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    /**
+     * Checks a bound of a narrower view: an inclusive bound must lie in the range, an exclusive
+     * one may also sit on an exclusive bound of this view.
+     */
+    private boolean inRange(K key, boolean inclusive) {
+        if (inclusive) {
+            return inRange(key);
+        }
+        return (low == null || key.compareTo(low) >= 0) && (high == null || key.compareTo(high) <= 0);
+    }
+
+    private NodeAVL<K, V> lowest() {
+        NodeAVL<K, V> node = low == null ? tree.firstNode() : tree.ceilingNode(low, lowInclusive);
+        return node == null || tooHigh(node.getKey()) ? null : node;
+    }
+
+    private NodeAVL<K, V> highest() {
+        NodeAVL<K, V> node = high == null ? tree.lastNode() : tree.floorNode(high, highInclusive);
+        return node == null || tooLow(node.getKey()) ? null : node;
+    }
+
+    private NodeAVL<K, V> ceiling(K key, boolean inclusive) {
+        if (tooLow(key)) {
+            return lowest();
+        }
+        NodeAVL<K, V> node = tree.ceilingNode(key, inclusive);
+        return node == null || tooHigh(node.getKey()) ? null : node;
+    }
+
+    private NodeAVL<K, V> floor(K key, boolean inclusive) {
+        if (tooHigh(key)) {
+            return highest();
+        }
+        NodeAVL<K, V> node = tree.floorNode(key, inclusive);
+        return node == null || tooLow(node.getKey()) ? null : node;
+    }
+
+    // Navigation in the order of this view
+
+    private NodeAVL<K, V> first() {
+        return descending ? highest() : lowest();
+    }
+
+    private NodeAVL<K, V> last() {
+        return descending ? lowest() : highest();
+    }
+
+    private NodeAVL<K, V> after(K key, boolean inclusive) {
+        return descending ? floor(key, inclusive) : ceiling(key, inclusive);
+    }
+
+    private NodeAVL<K, V> before(K key, boolean inclusive) {
+        return descending ? ceiling(key, inclusive) : floor(key, inclusive);
+    }
+
+    private static <K, V> Map.Entry<K, V> snapshot(NodeAVL<K, V> node) {
+        return node == null ? null : new SimpleImmutableEntry<>(node.getKey(), node.getValue());
+    }
+
+    private static <K> K keyOf(NodeAVL<K, ?> node) {
+        return node == null ? null : node.getKey();
+    }
+
+    private static <K> K keyOrThrow(NodeAVL<K, ?> node) {
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.getKey();
+    }
+
+    private Map.Entry<K, V> poll(NodeAVL<K, V> node) {
+        Map.Entry<K, V> entry = snapshot(node);
+        if (node != null) {
+            tree.delete(node.getKey());
+        }
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private NodeAVL<K, V> find(Object key) {
+        K k = (K) key;
+        if (k == null || !inRange(k)) {
+            return null;
+        }
+        NodeAVL<K, V> node = tree.ceilingNode(k, true);
+        return node != null && node.getKey().compareTo(k) == 0 ? node : null;
+    }
+
+    // Map
+
+    @Override
+    public int size() {
+        if (low == null && high == null) {
+            return tree.size();
+        }
+        int count = 0;
+        for (Iterator<Map.Entry<K, V>> it = new EntryIterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lowest() == null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        NodeAVL<K, V> node = find(key);
+        return node == null ? null : node.getValue();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        if (!inRange(key)) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+        NodeAVL<K, V> node = find(key);
+        if (node != null) {
+            V previous = node.getValue();
+            node.setValue(value);
+            return previous;
+        }
+        tree.insert(key, value);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        NodeAVL<K, V> node = find(key);
+        if (node == null) {
+            return null;
+        }
+        V previous = node.getValue();
+        tree.delete(node.getKey());
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (low == null && high == null) {
+            tree.clear();
+        } else {
+            for (Iterator<Map.Entry<K, V>> it = new EntryIterator(); it.hasNext(); ) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return AVLNavigableMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return AVLNavigableMap.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                AVLNavigableMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    // SortedMap
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return descending ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public K firstKey() {
+        return keyOrThrow(first());
+    }
+
+    @Override
+    public K lastKey() {
+        return keyOrThrow(last());
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    // NavigableMap
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return snapshot(before(key, false));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOf(before(key, false));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return snapshot(before(key, true));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOf(before(key, true));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return snapshot(after(key, true));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOf(after(key, true));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return snapshot(after(key, false));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOf(after(key, false));
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return snapshot(first());
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return snapshot(last());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return poll(first());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return poll(last());
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new AVLNavigableMap<>(tree, low, lowInclusive, high, highInclusive, !descending);
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (descending ? fromKey.compareTo(toKey) < 0 : fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return descending
+                ? narrow(toKey, toInclusive, fromKey, fromInclusive)
+                : narrow(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return descending ? narrow(toKey, inclusive, high, highInclusive) : narrow(low, lowInclusive, toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return descending ? narrow(low, lowInclusive, fromKey, inclusive) : narrow(fromKey, inclusive, high, highInclusive);
+    }
+
+    /**
+     * Returns a view of a narrower ascending range, keeping the direction of this view.
+     */
+    private NavigableMap<K, V> narrow(K newLow, boolean newLowInclusive, K newHigh, boolean newHighInclusive) {
+        if (newLow != low && !inRange(newLow, newLowInclusive)) {
+            throw new IllegalArgumentException("Key out of range: " + newLow);
+        }
+        if (newHigh != high && !inRange(newHigh, newHighInclusive)) {
+            throw new IllegalArgumentException("Key out of range: " + newHigh);
+        }
+        return new AVLNavigableMap<>(tree, newLow, newLowInclusive, newHigh, newHighInclusive, descending);
+    }
+
+    /**
+     * Iterates the entries of the view with a stack of pending nodes. Removing an entry
+     * rebalances the tree, so the stack is rebuilt by seeking past the removed key.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final ArrayDeque<NodeAVL<K, V>> stack = new ArrayDeque<>();
+        private NodeAVL<K, V> next;
+        private NodeAVL<K, V> lastReturned;
+
+        EntryIterator() {
+            seek(null);
+        }
+
+        /**
+         * Stacks the path to the first node of the view after a key, or from the start if null.
+         */
+        private void seek(K after) {
+            stack.clear();
+            NodeAVL<K, V> node = tree.rootNode();
+            while (node != null) {
+                K key = node.getKey();
+                boolean started = descending
+                        ? !tooHigh(key) && (after == null || key.compareTo(after) < 0)
+                        : !tooLow(key) && (after == null || key.compareTo(after) > 0);
+                if (started) {
+                    stack.push(node);
+                    node = descending ? node.getRight() : node.getLeft();
+                } else {
+                    node = descending ? node.getLeft() : node.getRight();
+                }
+            }
+            next = advance();
+        }
+
+        private NodeAVL<K, V> advance() {
+            NodeAVL<K, V> node = stack.poll();
+            if (node == null) {
+                return null;
+            }
+            if (descending ? tooLow(node.getKey()) : tooHigh(node.getKey())) {
+                stack.clear();
+                return null;
+            }
+            NodeAVL<K, V> child = descending ? node.getLeft() : node.getRight();
+            while (child != null) {
+                stack.push(child);
+                child = descending ? child.getRight() : child.getLeft();
+            }
+            return node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = advance();
+            NodeAVL<K, V> node = lastReturned;
+            return new SimpleEntry<>(node.getKey(), node.getValue()) {
+                @Override
+                public V setValue(V value) {
+                    node.setValue(value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            K key = lastReturned.getKey();
+            lastReturned = null;
+            tree.delete(key);
+            seek(key);
+        }
+    }
+
+    /**
+     * The keys of a map view as a {@link NavigableSet}, delegating every operation to the map.
+     */
+    private static final class KeySet<K extends Comparable<K>> extends AbstractSet<K> implements NavigableSet<K> {
+        private final AVLNavigableMap<K, ?> map;
+
+        KeySet(AVLNavigableMap<K, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            Iterator<? extends Map.Entry<K, ?>> entries = map.entrySet().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return entries.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!map.containsKey(o)) {
+                return false;
+            }
+            map.remove(o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public K lower(K k) {
+            return map.lowerKey(k);
+        }
+
+        @Override
+        public K floor(K k) {
+            return map.floorKey(k);
+        }
+
+        @Override
+        public K ceiling(K k) {
+            return map.ceilingKey(k);
+        }
+
+        @Override
+        public K higher(K k) {
+            return map.higherKey(k);
+        }
+
+        @Override
+        public K pollFirst() {
+            Map.Entry<K, ?> entry = map.pollFirstEntry();
+            return entry == null ? null : entry.getKey();
+        }
+
+        @Override
+        public K pollLast() {
+            Map.Entry<K, ?> entry = map.pollLastEntry();
+            return entry == null ? null : entry.getKey();
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return map.descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return map.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return map.headMap(toElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return map.tailMap(fromElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
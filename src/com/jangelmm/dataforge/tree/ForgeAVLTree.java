@@ -1,13 +1,32 @@
 package com.jangelmm.dataforge.tree;
 
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * A class representing a balanced AVL tree.
  *
  * @param <K> the type of keys maintained by this tree
  * @param <V> the type of mapped values
  */
-public class ForgeAVLTree<K extends Comparable<K>, V> {
+public class ForgeAVLTree<K extends Comparable<K>, V> implements Iterable<NodeAVL<K, V>> {
+    private static final int PARALLEL_HEIGHT_THRESHOLD = 12;
+
     private NodeAVL<K, V> root;
+    private int size;
 
     /**
      * Default constructor. Initializes an empty AVL tree.
@@ -16,6 +35,102 @@ public class ForgeAVLTree<K extends Comparable<K>, V> {
         root = null;
     }
 
+    /**
+     * Builds a perfectly balanced AVL tree from keys sorted in strictly increasing order, in O(n)
+     * and without rotations. Leaves get height 0.
+     *
+     * @param keys   the sorted keys
+     * @param values the value of each key, or null to map every key to null
+     * @param <K>    the type of keys
+     * @param <V>    the type of values
+     * @return the new tree
+     * @throws IllegalArgumentException if a key is null, the keys are not strictly increasing,
+     *                                  or there is not one value per key
+     */
+    public static <K extends Comparable<K>, V> ForgeAVLTree<K, V> fromSorted(K[] keys, V[] values) {
+        if (values != null && values.length != keys.length) {
+            throw new IllegalArgumentException("Expected " + keys.length + " values but got " + values.length);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0)) {
+                throw new IllegalArgumentException("Keys must be non-null and strictly increasing at index " + i);
+            }
+        }
+        ForgeAVLTree<K, V> tree = new ForgeAVLTree<>();
+        tree.root = buildBalanced(keys, values, 0, keys.length);
+        tree.size = keys.length;
+        return tree;
+    }
+
+    /**
+     * Builds a perfectly balanced AVL tree from the first {@code size} entries of an iterator,
+     * whose keys must come in strictly increasing order, in O(n) and without buffering them.
+     *
+     * @param entries the sorted entries
+     * @param size    the number of entries to take from the iterator
+     * @param <K>     the type of keys
+     * @param <V>     the type of values
+     * @return the new tree
+     * @throws IllegalArgumentException if the size is negative, the iterator has fewer entries,
+     *                                  or a key is null or out of order
+     */
+    public static <K extends Comparable<K>, V> ForgeAVLTree<K, V> fromSorted(
+            Iterator<? extends Map.Entry<? extends K, ? extends V>> entries, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + size);
+        }
+        ForgeAVLTree<K, V> tree = new ForgeAVLTree<>();
+        tree.root = buildBalanced(entries, size, new NodeAVL<K, V>());
+        tree.size = size;
+        return tree;
+    }
+
+    /**
+     * Builds a balanced subtree with correct heights from a sorted range of keys.
+     */
+    static <K, V> NodeAVL<K, V> buildBalanced(K[] keys, V[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        NodeAVL<K, V> node = new NodeAVL<>(keys[middle], values == null ? null : values[middle]);
+        node.setLeft(buildBalanced(keys, values, from, middle));
+        node.setRight(buildBalanced(keys, values, middle + 1, to));
+        node.setHeight(Math.max(heightOf(node.getLeft()), heightOf(node.getRight())) + 1);
+        return node;
+    }
+
+    /**
+     * Builds a balanced subtree of {@code count} entries taken in order from an iterator.
+     * The key of {@code last} holds the previous key, to check the order.
+     */
+    private static <K extends Comparable<K>, V> NodeAVL<K, V> buildBalanced(
+            Iterator<? extends Map.Entry<? extends K, ? extends V>> entries, int count, NodeAVL<K, V> last) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = count / 2;
+        NodeAVL<K, V> left = buildBalanced(entries, leftCount, last);
+        if (!entries.hasNext()) {
+            throw new IllegalArgumentException("The iterator has fewer entries than the given size");
+        }
+        Map.Entry<? extends K, ? extends V> entry = entries.next();
+        K key = entry.getKey();
+        if (key == null || (last.getKey() != null && last.getKey().compareTo(key) >= 0)) {
+            throw new IllegalArgumentException("Keys must be non-null and strictly increasing");
+        }
+        last.setKey(key);
+        NodeAVL<K, V> node = new NodeAVL<>(key, entry.getValue());
+        node.setLeft(left);
+        node.setRight(buildBalanced(entries, count - 1 - leftCount, last));
+        node.setHeight(Math.max(heightOf(node.getLeft()), heightOf(node.getRight())) + 1);
+        return node;
+    }
+
+    private static int heightOf(NodeAVL<?, ?> node) {
+        return node == null ? -1 : node.getHeight();
+    }
+
     /**
      * Searches for a node with the specified key.
      *
@@ -45,22 +160,24 @@ public class ForgeAVLTree<K extends Comparable<K>, V> {
         NodeAVL<K, V> newNode = new NodeAVL<>(key, value);
         if (root == null) {
             root = newNode;
+            size = 1;
             return true;
         }
-        NodeAVL<K, V> insertedNode = insertAVL(newNode, root);
-        if (insertedNode == null) return false;
-        root = insertedNode;
-        return true;
+        int before = size;
+        root = insertAVL(newNode, root);
+        return size != before;
     }
 
     /**
-     * Helper method for AVL insertion.
+     * Helper method for AVL insertion. Increments the size when the new node is linked; on a
+     * duplicate key it returns the subtree unchanged, so the path above it stays intact.
      */
     private NodeAVL<K, V> insertAVL(NodeAVL<K, V> newNode, NodeAVL<K, V> subtree) {
         NodeAVL<K, V> newParent = subtree;
         if (newNode.getKey().compareTo(subtree.getKey()) < 0) {
             if (subtree.getLeft() == null) {
                 subtree.setLeft(newNode);
+                size++;
             } else {
                 subtree.setLeft(insertAVL(newNode, subtree.getLeft()));
                 if (height(subtree.getLeft()) - height(subtree.getRight()) == 2) {
@@ -74,6 +191,7 @@ public class ForgeAVLTree<K extends Comparable<K>, V> {
         } else if (newNode.getKey().compareTo(subtree.getKey()) > 0) {
             if (subtree.getRight() == null) {
                 subtree.setRight(newNode);
+                size++;
             } else {
                 subtree.setRight(insertAVL(newNode, subtree.getRight()));
                 if (height(subtree.getRight()) - height(subtree.getLeft()) == 2) {
@@ -86,7 +204,7 @@ public class ForgeAVLTree<K extends Comparable<K>, V> {
             }
         } else {
             System.out.println("Duplicate key");
-            return null;
+            return subtree;
         }
 
         subtree.setHeight(Math.max(height(subtree.getLeft()), height(subtree.getRight())) + 1);
@@ -94,110 +212,538 @@ public class ForgeAVLTree<K extends Comparable<K>, V> {
     }
 
     /**
-     * Performs an in-order traversal of the tree.
+     * Returns an iterator over the nodes in ascending key order.
+     *
+     * @return the iterator
      */
-    public void inOrderTraversal() {
-        inOrderTraversalHelper(root);
-        System.out.println();
+    @Override
+    public Iterator<NodeAVL<K, V>> iterator() {
+        return iterator(TraversalOrder.IN_ORDER);
+    }
+
+    /**
+     * Returns an iterator over the nodes in the given order. It uses an explicit stack instead
+     * of recursion and allocates nothing per node. The tree must not be modified while it is
+     * being iterated.
+     *
+     * @param order the traversal order
+     * @return the iterator
+     */
+    public Iterator<NodeAVL<K, V>> iterator(TraversalOrder order) {
+        return new TreeIterator<>(root, order, NodeAVL::getLeft, NodeAVL::getRight, Function.identity());
+    }
+
+    /**
+     * Returns a spliterator over the nodes in ascending key order that splits along the tree.
+     *
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<NodeAVL<K, V>> spliterator() {
+        return new TreeSpliterator<>(root, parallelShape(), false, size(), 0);
     }
 
-    private void inOrderTraversalHelper(NodeAVL<K, V> node) {
-        if (node != null) {
-            inOrderTraversalHelper(node.getLeft());
-            System.out.print("  " + node.getKey());
-            inOrderTraversalHelper(node.getRight());
+    /**
+     * Returns a spliterator over the nodes in the given order.
+     *
+     * @param order the traversal order
+     * @return the spliterator
+     */
+    public Spliterator<NodeAVL<K, V>> spliterator(TraversalOrder order) {
+        if (order == TraversalOrder.IN_ORDER) {
+            return spliterator();
         }
+        return Spliterators.spliterator(iterator(order), size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
     }
 
     /**
-     * Performs a post-order traversal of the tree.
+     * Applies an action to every node in the given order.
+     *
+     * @param order  the traversal order
+     * @param action the action to apply
      */
-    public void postOrderTraversal() {
-        postOrderTraversalHelper(root);
+    public void forEach(TraversalOrder order, Consumer<? super NodeAVL<K, V>> action) {
+        Iterator<NodeAVL<K, V>> iterator = iterator(order);
+        while (iterator.hasNext()) {
+            action.accept(iterator.next());
+        }
     }
 
-    private void postOrderTraversalHelper(NodeAVL<K, V> node) {
-        if (node != null) {
-            postOrderTraversalHelper(node.getLeft());
-            postOrderTraversalHelper(node.getRight());
-            System.out.print("  " + node.getKey());
+    /**
+     * Applies an action to the nodes in the given order for as long as it returns true.
+     *
+     * @param order  the traversal order
+     * @param action the action to apply; returning false stops the traversal
+     * @return true if every node was visited, false if the action stopped the traversal
+     */
+    public boolean forEachWhile(TraversalOrder order, Predicate<? super NodeAVL<K, V>> action) {
+        Iterator<NodeAVL<K, V>> iterator = iterator(order);
+        while (iterator.hasNext()) {
+            if (!action.test(iterator.next())) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
-     * Performs a pre-order traversal of the tree.
+     * Returns a sequential stream of the nodes in ascending key order.
+     *
+     * @return the stream
      */
-    public void preOrderTraversal() {
-        preOrderTraversalHelper(root);
+    public Stream<NodeAVL<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the nodes in ascending key order. Its spliterator splits
+     * along the tree.
+     *
+     * @return the stream
+     */
+    public Stream<NodeAVL<K, V>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Folds the nodes in ascending key order on the common fork-join pool. Subtrees are folded
+     * as separate tasks down to a height of about a dozen levels, and the partial results are
+     * combined in order.
+     *
+     * @param identity    the initial value of every partial result, neutral for the combiner
+     * @param accumulator folds one node into a partial result
+     * @param combiner    joins two consecutive partial results; must be associative
+     * @param <R>         the type of the result
+     * @return the result
+     */
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super NodeAVL<K, V>, R> accumulator, BinaryOperator<R> combiner) {
+        return ForkJoinPool.commonPool().invoke(new TreeFoldTask<>(root, parallelShape(), identity, accumulator, combiner));
     }
 
-    private void preOrderTraversalHelper(NodeAVL<K, V> node) {
-        if (node != null) {
-            System.out.print("  " + node.getKey());
-            preOrderTraversalHelper(node.getLeft());
-            preOrderTraversalHelper(node.getRight());
+    /**
+     * Applies an action to every node on the common fork-join pool, in no particular order.
+     *
+     * @param action the action to apply; it must be safe to call from several threads
+     */
+    public void parallelForEach(Consumer<? super NodeAVL<K, V>> action) {
+        parallelReduce(null, (ignored, node) -> {
+            action.accept(node);
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * Counts the nodes that satisfy a predicate on the common fork-join pool.
+     *
+     * @param predicate the condition to test; it must be safe to call from several threads
+     * @return the number of matching nodes
+     */
+    public long parallelCount(Predicate<? super NodeAVL<K, V>> predicate) {
+        return parallelReduce(0L, (count, node) -> predicate.test(node) ? count + 1 : count, Long::sum);
+    }
+
+    private TreeFoldTask.Shape<NodeAVL<K, V>, NodeAVL<K, V>> parallelShape() {
+        return new TreeFoldTask.Shape<>(NodeAVL::getLeft, NodeAVL::getRight, Function.identity(),
+                node -> node.getHeight() + 1, PARALLEL_HEIGHT_THRESHOLD);
+    }
+
+    /**
+     * Takes an immutable snapshot of the tree laid out for fast lookups, in O(n).
+     *
+     * @return the snapshot
+     * @throws IllegalStateException if the tree has more than 2<sup>30</sup> - 1 nodes
+     */
+    public ForgeFrozenTree<K, V> freeze() {
+        Object[] slots = ForgeFrozenTree.layout(size(), iterator());
+        Object[] values = new Object[slots.length];
+        for (int i = 1; i < slots.length; i++) {
+            NodeAVL<?, ?> node = (NodeAVL<?, ?>) slots[i];
+            slots[i] = node.getKey();
+            values[i] = node.getValue();
         }
+        return new ForgeFrozenTree<>(slots, values);
     }
 
     /**
-     * Calculates the size of the tree.
+     * Takes an immutable snapshot of the keys of the tree as primitive keys, in O(n).
+     *
+     * @param key maps each key to a long; it must preserve the order of the keys
+     * @return the snapshot
+     * @throws IllegalArgumentException if the mapped keys are not strictly increasing
+     *                                  or the tree has more than 2<sup>30</sup> - 1 nodes
+     */
+    public ForgeFrozenLongTree freeze(ToLongFunction<? super K> key) {
+        long[] sorted = new long[size()];
+        int i = 0;
+        for (NodeAVL<K, V> node : this) {
+            sorted[i++] = key.applyAsLong(node.getKey());
+        }
+        return ForgeFrozenLongTree.fromSorted(sorted);
+    }
+
+    /**
+     * Performs an in-order traversal of the tree.
+     */
+    public void inOrderTraversal() {
+        forEach(TraversalOrder.IN_ORDER, node -> System.out.print("  " + node.getKey()));
+        System.out.println();
+    }
+
+    /**
+     * Performs a post-order traversal of the tree.
+     */
+    public void postOrderTraversal() {
+        forEach(TraversalOrder.POST_ORDER, node -> System.out.print("  " + node.getKey()));
+    }
+
+    /**
+     * Performs a pre-order traversal of the tree.
+     */
+    public void preOrderTraversal() {
+        forEach(TraversalOrder.PRE_ORDER, node -> System.out.print("  " + node.getKey()));
+    }
+
+    /**
+     * Returns the size of the tree, in O(1).
      *
      * @return the number of nodes in the tree
      */
     public int size() {
-        return sizeHelper(root);
+        return size;
     }
 
-    private int sizeHelper(NodeAVL<K, V> node) {
-        if (node != null) return (1 + sizeHelper(node.getLeft()) + sizeHelper(node.getRight()));
-        return 0;
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree has no nodes, false otherwise
+     */
+    public boolean isEmpty() {
+        return root == null;
     }
 
     /**
-     * Deletes a node with the specified key from the tree.
+     * Removes all nodes from the tree.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the entry with the greatest key less than or equal to the given key.
      *
-     * @param key  the key of the node to delete
-     * @param mode the mode of deletion (not currently used)
-     * @return true if deletion is successful, false if the key is not found
+     * @param key the key to look for
+     * @return a snapshot of the entry, or null if there is no such key
      */
-    public boolean delete(K key, int mode) {
-        NodeAVL<K, V> current = root, parent = null;
-        while (current != null && !current.getKey().equals(key)) {
-            parent = current;
-            if (current.getKey().compareTo(key) > 0) {
+    public Map.Entry<K, V> floorEntry(K key) {
+        return entryOf(floorNode(key, true));
+    }
+
+    /**
+     * Returns the entry with the least key greater than or equal to the given key.
+     *
+     * @param key the key to look for
+     * @return a snapshot of the entry, or null if there is no such key
+     */
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return entryOf(ceilingNode(key, true));
+    }
+
+    /**
+     * Returns the entry with the greatest key strictly less than the given key.
+     *
+     * @param key the key to look for
+     * @return a snapshot of the entry, or null if there is no such key
+     */
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return entryOf(floorNode(key, false));
+    }
+
+    /**
+     * Returns the entry with the least key strictly greater than the given key.
+     *
+     * @param key the key to look for
+     * @return a snapshot of the entry, or null if there is no such key
+     */
+    public Map.Entry<K, V> higherEntry(K key) {
+        return entryOf(ceilingNode(key, false));
+    }
+
+    /**
+     * Returns the entry with the least key.
+     *
+     * @return a snapshot of the entry, or null if the tree is empty
+     */
+    public Map.Entry<K, V> firstEntry() {
+        return entryOf(firstNode());
+    }
+
+    /**
+     * Returns the entry with the greatest key.
+     *
+     * @return a snapshot of the entry, or null if the tree is empty
+     */
+    public Map.Entry<K, V> lastEntry() {
+        return entryOf(lastNode());
+    }
+
+    /**
+     * Removes the entry with the least key.
+     *
+     * @return the removed entry, or null if the tree is empty
+     */
+    public Map.Entry<K, V> pollFirstEntry() {
+        Map.Entry<K, V> entry = firstEntry();
+        if (entry != null) {
+            delete(entry.getKey());
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the entry with the greatest key.
+     *
+     * @return the removed entry, or null if the tree is empty
+     */
+    public Map.Entry<K, V> pollLastEntry() {
+        Map.Entry<K, V> entry = lastEntry();
+        if (entry != null) {
+            delete(entry.getKey());
+        }
+        return entry;
+    }
+
+    /**
+     * Returns a live view of the keys from {@code fromKey}, inclusive, to {@code toKey}, exclusive.
+     * The view copies nothing; iterating it costs O(log n + k) for k entries.
+     *
+     * @param fromKey the lowest key of the view
+     * @param toKey   the key right after the view
+     * @return the view
+     * @throws IllegalArgumentException if fromKey is greater than toKey
+     */
+    public NavigableMap<K, V> subMap(K fromKey, K toKey) {
+        return asNavigableMap().subMap(fromKey, true, toKey, false);
+    }
+
+    /**
+     * Returns a live view of the keys strictly less than {@code toKey}.
+     *
+     * @param toKey the key right after the view
+     * @return the view
+     */
+    public NavigableMap<K, V> headMap(K toKey) {
+        return asNavigableMap().headMap(toKey, false);
+    }
+
+    /**
+     * Returns a live view of the keys greater than or equal to {@code fromKey}.
+     *
+     * @param fromKey the lowest key of the view
+     * @return the view
+     */
+    public NavigableMap<K, V> tailMap(K fromKey) {
+        return asNavigableMap().tailMap(fromKey, true);
+    }
+
+    /**
+     * Returns the whole tree as a {@link NavigableMap}, so it can be passed to code written
+     * against the collections framework. The map is a live view: changes through it, such as
+     * {@code put} or {@code remove}, are made on the tree and the other way round.
+     *
+     * @return the map view
+     */
+    public NavigableMap<K, V> asNavigableMap() {
+        return new AVLNavigableMap<>(this, null, true, null, true, false);
+    }
+
+    /**
+     * Returns the node with the least key greater than the given key, or equal to it when
+     * {@code inclusive}.
+     */
+    NodeAVL<K, V> ceilingNode(K key, boolean inclusive) {
+        NodeAVL<K, V> current = root, best = null;
+        while (current != null) {
+            int cmp = key.compareTo(current.getKey());
+            if (cmp == 0 && inclusive) {
+                return current;
+            }
+            if (cmp < 0) {
+                best = current;
                 current = current.getLeft();
             } else {
                 current = current.getRight();
             }
         }
-        if (current == null) return false;
-        if (current == root) root = deleteNode(current, mode);
-        else {
-            if (parent.getLeft() == current) parent.setLeft(deleteNode(current, mode));
-            else parent.setRight(deleteNode(current, mode));
+        return best;
+    }
+
+    /**
+     * Returns the node with the greatest key less than the given key, or equal to it when
+     * {@code inclusive}.
+     */
+    NodeAVL<K, V> floorNode(K key, boolean inclusive) {
+        NodeAVL<K, V> current = root, best = null;
+        while (current != null) {
+            int cmp = key.compareTo(current.getKey());
+            if (cmp == 0 && inclusive) {
+                return current;
+            }
+            if (cmp > 0) {
+                best = current;
+                current = current.getRight();
+            } else {
+                current = current.getLeft();
+            }
+        }
+        return best;
+    }
+
+    NodeAVL<K, V> firstNode() {
+        NodeAVL<K, V> current = root;
+        while (current != null && current.getLeft() != null) {
+            current = current.getLeft();
         }
+        return current;
+    }
+
+    NodeAVL<K, V> lastNode() {
+        NodeAVL<K, V> current = root;
+        while (current != null && current.getRight() != null) {
+            current = current.getRight();
+        }
+        return current;
+    }
 
-        if (parent == null) return true;
-        parent.setHeight(Math.max(height(parent.getLeft()), height(parent.getRight())) + 1);
+    NodeAVL<K, V> rootNode() {
+        return root;
+    }
+
+    private static <K, V> Map.Entry<K, V> entryOf(NodeAVL<K, V> node) {
+        return node == null ? null : new AbstractMap.SimpleImmutableEntry<>(node.getKey(), node.getValue());
+    }
+
+    /**
+     * Deletes the node with the specified key, rebalancing every node on the path back to the
+     * root so that the height stays within the AVL bound.
+     *
+     * @param key the key of the node to delete
+     * @return true if deletion is successful, false if the key is not found
+     */
+    public boolean delete(K key) {
+        if (key == null || search(key) == null) {
+            return false;
+        }
+        root = deleteAVL(root, key);
+        size--;
         return true;
     }
 
-    private NodeAVL<K, V> deleteNode(NodeAVL<K, V> node, int mode) {
-        if (node.getLeft() == null) {
-            return node.getRight();
-        } else if (node.getRight() == null) {
-            return node.getLeft();
+    /**
+     * Deletes a node with the specified key from the tree.
+     *
+     * @param key  the key of the node to delete
+     * @param mode ignored; kept for compatibility
+     * @return true if deletion is successful, false if the key is not found
+     * @deprecated use {@link #delete(Comparable)}, which rebalances the tree
+     */
+    @Deprecated
+    public boolean delete(K key, int mode) {
+        return delete(key);
+    }
+
+    /**
+     * Helper method for AVL deletion. The key must be present in the subtree. A node with two
+     * children is replaced by its in-order successor node, so nodes keep their own key and value.
+     */
+    private NodeAVL<K, V> deleteAVL(NodeAVL<K, V> subtree, K key) {
+        int cmp = key.compareTo(subtree.getKey());
+        if (cmp < 0) {
+            subtree.setLeft(deleteAVL(subtree.getLeft(), key));
+        } else if (cmp > 0) {
+            subtree.setRight(deleteAVL(subtree.getRight(), key));
+        } else if (subtree.getLeft() == null) {
+            return subtree.getRight();
+        } else if (subtree.getRight() == null) {
+            return subtree.getLeft();
         } else {
-            NodeAVL<K, V> successor = node.getRight(), successorParent = null;
+            NodeAVL<K, V> successor = subtree.getRight();
             while (successor.getLeft() != null) {
-                successorParent = successor;
                 successor = successor.getLeft();
             }
-            node.setKey(successor.getKey());
-            if (mode == 1) successorParent.setLeft(successor.getRight());
-            else node.setRight(successor.getRight());
-            return node;
+            successor.setRight(deleteMin(subtree.getRight()));
+            successor.setLeft(subtree.getLeft());
+            subtree = successor;
+        }
+        return rebalance(subtree);
+    }
+
+    private NodeAVL<K, V> deleteMin(NodeAVL<K, V> subtree) {
+        if (subtree.getLeft() == null) {
+            return subtree.getRight();
+        }
+        subtree.setLeft(deleteMin(subtree.getLeft()));
+        return rebalance(subtree);
+    }
+
+    /**
+     * Updates the height of a node and restores its balance factor with one or two rotations.
+     */
+    private NodeAVL<K, V> rebalance(NodeAVL<K, V> node) {
+        node.setHeight(Math.max(height(node.getLeft()), height(node.getRight())) + 1);
+        int factor = height(node.getLeft()) - height(node.getRight());
+        if (factor > 1) {
+            NodeAVL<K, V> left = node.getLeft();
+            return height(left.getLeft()) >= height(left.getRight()) ? rotateLeft(node) : doubleRotateLeft(node);
+        }
+        if (factor < -1) {
+            NodeAVL<K, V> right = node.getRight();
+            return height(right.getRight()) >= height(right.getLeft()) ? rotateRight(node) : doubleRotateRight(node);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the height of the tree, counted in edges from the root to the deepest leaf.
+     *
+     * @return the height, or -1 if the tree is empty
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Checks that the tree is a valid AVL tree: keys in strictly increasing order, every stored
+     * height correct and every balance factor between -1 and 1. Meant for tests and debugging.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void checkInvariants() {
+        checkSubtree(root, null, null);
+    }
+
+    /**
+     * Checks a subtree whose keys must lie strictly between two bounds, and returns its height.
+     */
+    private int checkSubtree(NodeAVL<K, V> node, K lower, K upper) {
+        if (node == null) {
+            return -1;
+        }
+        K key = node.getKey();
+        if ((lower != null && key.compareTo(lower) <= 0) || (upper != null && key.compareTo(upper) >= 0)) {
+            throw new IllegalStateException("Key " + key + " is out of order");
+        }
+        int leftHeight = checkSubtree(node.getLeft(), lower, key);
+        int rightHeight = checkSubtree(node.getRight(), key, upper);
+        int expected = Math.max(leftHeight, rightHeight) + 1;
+        if (node.getHeight() != expected) {
+            throw new IllegalStateException("Node " + key + " stores height " + node.getHeight() + " instead of " + expected);
+        }
+        if (Math.abs(leftHeight - rightHeight) > 1) {
+            throw new IllegalStateException("Node " + key + " has balance factor " + (leftHeight - rightHeight));
         }
+        return expected;
     }
 
     /**
@@ -1,20 +1,171 @@
 package com.jangelmm.dataforge.tree;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
- * A generic binary tree implementation.
+ * A generic binary search tree implementation.
+ * <p>
+ * By default the tree does no balancing, so values added in sorted order produce a tree as
+ * deep as it is large. A {@link Balancing} mode chosen at construction keeps the depth
+ * logarithmic with the same {@code add}/{@code remove}/{@code contains} API. Those operations
+ * are iterative, so even a degenerate tree cannot overflow the stack.
  *
  * @param <T> the type of data stored in the tree nodes
  */
-public class ForgeBinaryTree<T extends Comparable<T>> {
+public class ForgeBinaryTree<T extends Comparable<T>> implements Iterable<T> {
+
+    /**
+     * The balancing strategies of a {@link ForgeBinaryTree}.
+     */
+    public enum Balancing {
+        /**
+         * No balancing: the shape of the tree depends on the insertion order.
+         */
+        NONE,
+        /**
+         * A randomized treap: every node gets a random priority and rotations keep the
+         * priorities in heap order, which gives an expected logarithmic depth.
+         */
+        TREAP,
+        /**
+         * A scapegoat tree: when a node ends up too deep, the smallest subtree above it whose
+         * child holds more than two thirds of its nodes, judged by the subtree sizes every node
+         * stores, is rebuilt into a perfectly balanced one.
+         */
+        SCAPEGOAT
+    }
+
+    private static final double SCAPEGOAT_ALPHA = 2.0 / 3.0;
+    private static final double LOG_INVERSE_ALPHA = Math.log(1 / SCAPEGOAT_ALPHA);
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final Balancing balancing;
+    private final Random random;
     private Node<T> root;
+    private int maxSize;
+    private int leafCount;
 
     /**
-     * Constructs an empty ForgeBinaryTree.
+     * Constructs an empty ForgeBinaryTree without balancing.
      */
     public ForgeBinaryTree() {
+        this(Balancing.NONE);
+    }
+
+    /**
+     * Constructs an empty ForgeBinaryTree with the given balancing strategy.
+     *
+     * @param balancing the balancing strategy
+     * @throws IllegalArgumentException if the balancing strategy is null
+     */
+    public ForgeBinaryTree(Balancing balancing) {
+        if (balancing == null) {
+            throw new IllegalArgumentException("Balancing must not be null");
+        }
+        this.balancing = balancing;
+        this.random = balancing == Balancing.TREAP ? new Random() : null;
         this.root = null;
     }
 
+    /**
+     * Returns the balancing strategy of the tree.
+     *
+     * @return the balancing strategy
+     */
+    public Balancing getBalancing() {
+        return balancing;
+    }
+
+    /**
+     * Builds a perfectly balanced tree from values sorted in strictly increasing order, in O(n).
+     *
+     * @param values the sorted values
+     * @param <T>    the type of the values
+     * @return the new tree
+     * @throws IllegalArgumentException if a value is null or the values are not strictly increasing
+     */
+    public static <T extends Comparable<T>> ForgeBinaryTree<T> fromSorted(T[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null || (i > 0 && values[i - 1].compareTo(values[i]) >= 0)) {
+                throw new IllegalArgumentException("Values must be non-null and strictly increasing at index " + i);
+            }
+        }
+        ForgeBinaryTree<T> tree = new ForgeBinaryTree<>();
+        tree.root = buildBalanced(values, 0, values.length);
+        tree.maxSize = values.length;
+        tree.leafCount = leavesIn(tree.root);
+        return tree;
+    }
+
+    /**
+     * Builds a perfectly balanced tree from the first {@code size} values of an iterator,
+     * which must come in strictly increasing order, in O(n) and without buffering them.
+     *
+     * @param values the sorted values
+     * @param size   the number of values to take from the iterator
+     * @param <T>    the type of the values
+     * @return the new tree
+     * @throws IllegalArgumentException if the size is negative, the iterator has fewer values,
+     *                                  or a value is null or out of order
+     */
+    public static <T extends Comparable<T>> ForgeBinaryTree<T> fromSorted(Iterator<? extends T> values, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + size);
+        }
+        ForgeBinaryTree<T> tree = new ForgeBinaryTree<>();
+        tree.root = buildBalanced(values, size, new Node<T>(null, null, null));
+        tree.maxSize = size;
+        tree.leafCount = leavesIn(tree.root);
+        return tree;
+    }
+
+    /**
+     * Builds a balanced subtree from a sorted range of an array.
+     */
+    static <T> Node<T> buildBalanced(T[] values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node<>(values[middle], buildBalanced(values, from, middle), buildBalanced(values, middle + 1, to));
+    }
+
+    /**
+     * Builds a balanced subtree of {@code count} values taken in order from an iterator.
+     * The data of {@code last} holds the previous value, to check the order.
+     */
+    private static <T extends Comparable<T>> Node<T> buildBalanced(Iterator<? extends T> values, int count, Node<T> last) {
+        if (count == 0) {
+            return null;
+        }
+        int leftCount = count / 2;
+        Node<T> left = buildBalanced(values, leftCount, last);
+        if (!values.hasNext()) {
+            throw new IllegalArgumentException("The iterator has fewer values than the given size");
+        }
+        T value = values.next();
+        if (value == null || (last.getData() != null && last.getData().compareTo(value) >= 0)) {
+            throw new IllegalArgumentException("Values must be non-null and strictly increasing");
+        }
+        last.setData(value);
+        Node<T> node = new Node<>(value, left, null);
+        node.setRight(buildBalanced(values, count - 1 - leftCount, last));
+        node.setSize(count);
+        return node;
+    }
+
     /**
      * Checks if a value is present in the tree.
      *
@@ -22,21 +173,18 @@ public class ForgeBinaryTree<T extends Comparable<T>> {
      * @return true if the value is found, false otherwise
      */
     public boolean contains(T value) {
-        return contains(value, root);
-    }
-
-    private boolean contains(T value, Node<T> node) {
-        if (node == null) {
+        if (value == null) {
             return false;
         }
-        int cmp = value.compareTo(node.getData());
-        if (cmp < 0) {
-            return contains(value, node.getLeft());
-        } else if (cmp > 0) {
-            return contains(value, node.getRight());
-        } else {
-            return true;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = value.compareTo(node.getData());
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.getLeft() : node.getRight();
         }
+        return false;
     }
 
     /**
@@ -49,32 +197,43 @@ public class ForgeBinaryTree<T extends Comparable<T>> {
         if (value == null) {
             return false;
         }
-        if (root == null) {
-            root = new Node<>(value, null, null);
-            return true;
+        Path<T> path = new Path<>();
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = value.compareTo(node.getData());
+            if (cmp == 0) {
+                return false; // Value already exists
+            }
+            path.push(node);
+            node = cmp < 0 ? node.getLeft() : node.getRight();
         }
-        return add(value, root);
-    }
-
-    private boolean add(T value, Node<T> node) {
-        int cmp = value.compareTo(node.getData());
-        if (cmp < 0) {
-            if (node.getLeft() == null) {
-                node.setLeft(new Node<>(value, null, null));
-                return true;
-            } else {
-                return add(value, node.getLeft());
+        Node<T> added = new Node<>(value, null, null);
+        Node<T> parent = path.peek();
+        leafCount++;
+        if (parent == null) {
+            root = added;
+        } else {
+            if (isLeaf(parent)) {
+                leafCount--;
             }
-        } else if (cmp > 0) {
-            if (node.getRight() == null) {
-                node.setRight(new Node<>(value, null, null));
-                return true;
+            if (value.compareTo(parent.getData()) < 0) {
+                parent.setLeft(added);
             } else {
-                return add(value, node.getRight());
+                parent.setRight(added);
             }
-        } else {
-            return false; // Value already exists
         }
+        for (int i = 0; i < path.size(); i++) {
+            Node<T> ancestor = path.get(i);
+            ancestor.setSize(ancestor.getSize() + 1);
+        }
+        maxSize = Math.max(maxSize, root.getSize());
+        if (balancing == Balancing.TREAP) {
+            added.setPriority(random.nextInt());
+            siftUp(added, path);
+        } else if (balancing == Balancing.SCAPEGOAT && path.size() > Math.log(maxSize) / LOG_INVERSE_ALPHA) {
+            rebuildScapegoat(added, path);
+        }
+        return true;
     }
 
     /**
@@ -84,137 +243,483 @@ public class ForgeBinaryTree<T extends Comparable<T>> {
      * @return true if the value was removed, false if it was not found
      */
     public boolean remove(T value) {
-        if (value == null || root == null) {
+        if (value == null) {
             return false;
         }
-        root = remove(value, root);
+        Path<T> path = new Path<>();
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = value.compareTo(node.getData());
+            if (cmp == 0) {
+                break;
+            }
+            path.push(node);
+            node = cmp < 0 ? node.getLeft() : node.getRight();
+        }
+        if (node == null) {
+            return false;
+        }
+        if (balancing == Balancing.TREAP) {
+            while (node.getLeft() != null && node.getRight() != null) { // Rotate it down to a leaf
+                Node<T> child = node.getLeft().getPriority() > node.getRight().getPriority()
+                        ? rotateRight(node) : rotateLeft(node);
+                replaceChild(path.peek(), node, child);
+                path.push(child);
+            }
+        } else if (node.getLeft() != null && node.getRight() != null) {
+            path.push(node);
+            Node<T> successor = node.getRight();
+            while (successor.getLeft() != null) {
+                path.push(successor);
+                successor = successor.getLeft();
+            }
+            node.setData(successor.getData());
+            node = successor;
+        }
+        Node<T> parent = path.peek();
+        replaceChild(parent, node, node.getLeft() != null ? node.getLeft() : node.getRight());
+        if (isLeaf(node)) {
+            leafCount--;
+            if (parent != null && isLeaf(parent)) {
+                leafCount++;
+            }
+        }
+        for (int i = 0; i < path.size(); i++) {
+            Node<T> ancestor = path.get(i);
+            ancestor.setSize(ancestor.getSize() - 1);
+        }
+        if (balancing == Balancing.SCAPEGOAT && countNodes() < SCAPEGOAT_ALPHA * maxSize) {
+            root = rebuild(root);
+            maxSize = countNodes();
+        }
         return true;
     }
 
-    private Node<T> remove(T value, Node<T> node) {
-        if (node == null) {
-            return null;
+    /**
+     * Rotates a new treap node up until its parent has a higher priority.
+     */
+    private void siftUp(Node<T> node, Path<T> path) {
+        while (!path.isEmpty() && path.peek().getPriority() < node.getPriority()) {
+            Node<T> parent = path.pop();
+            if (parent.getLeft() == node) {
+                rotateRight(parent);
+            } else {
+                rotateLeft(parent);
+            }
+            replaceChild(path.peek(), parent, node);
         }
-        int cmp = value.compareTo(node.getData());
-        if (cmp < 0) {
-            node.setLeft(remove(value, node.getLeft()));
-        } else if (cmp > 0) {
-            node.setRight(remove(value, node.getRight()));
-        } else {
-            // Node with one child or no child
-            if (node.getLeft() == null) {
-                return node.getRight();
-            } else if (node.getRight() == null) {
-                return node.getLeft();
+    }
+
+    /**
+     * Finds the lowest ancestor of a node that is too deep whose subtree is unbalanced,
+     * and rebuilds that subtree.
+     */
+    private void rebuildScapegoat(Node<T> node, Path<T> path) {
+        int childSize = 1;
+        Node<T> child = node;
+        while (!path.isEmpty()) {
+            Node<T> parent = path.pop();
+            Node<T> sibling = parent.getLeft() == child ? parent.getRight() : parent.getLeft();
+            int parentSize = childSize + sizeOf(sibling) + 1;
+            if (childSize > SCAPEGOAT_ALPHA * parentSize) {
+                replaceChild(path.peek(), parent, rebuild(parent));
+                return;
             }
-            // Node with two children
-            Node<T> minNode = findMin(node.getRight());
-            node.setData(minNode.getData());
-            node.setRight(remove(minNode.getData(), node.getRight()));
+            childSize = parentSize;
+            child = parent;
         }
-        return node;
     }
 
     /**
-     * Finds the minimum value in the subtree rooted at the given node.
+     * Rebuilds a subtree into a perfectly balanced one with the same values.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T> rebuild(Node<T> subtree) {
+        T[] values = (T[]) new Comparable<?>[sizeOf(subtree)];
+        int count = 0;
+        Path<T> stack = new Path<>();
+        Node<T> node = subtree;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+            node = stack.pop();
+            if (isLeaf(node)) {
+                leafCount--;
+            }
+            values[count++] = node.getData();
+            node = node.getRight();
+        }
+        Node<T> rebuilt = buildBalanced(values, 0, count);
+        leafCount += leavesIn(rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * Counts the leaves of a subtree by walking it.
+     */
+    private static <T> int leavesIn(Node<T> subtree) {
+        int leaves = 0;
+        Path<T> stack = new Path<>();
+        if (subtree != null) {
+            stack.push(subtree);
+        }
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            if (isLeaf(node)) {
+                leaves++;
+            }
+            if (node.getLeft() != null) {
+                stack.push(node.getLeft());
+            }
+            if (node.getRight() != null) {
+                stack.push(node.getRight());
+            }
+        }
+        return leaves;
+    }
+
+    private static boolean isLeaf(Node<?> node) {
+        return node.getLeft() == null && node.getRight() == null;
+    }
+
+    private static int sizeOf(Node<?> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    /**
+     * Rotates a subtree to the right, lifting its left child.
+     *
+     * @return the new root of the subtree
+     */
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.getLeft();
+        boolean pivotWasLeaf = isLeaf(pivot);
+        node.setLeft(pivot.getRight());
+        pivot.setRight(node);
+        rotated(node, pivot, pivotWasLeaf);
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree to the left, lifting its right child.
      *
-     * @param node the root of the subtree
-     * @return the node with the minimum value
+     * @return the new root of the subtree
+     */
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.getRight();
+        boolean pivotWasLeaf = isLeaf(pivot);
+        node.setRight(pivot.getLeft());
+        pivot.setLeft(node);
+        rotated(node, pivot, pivotWasLeaf);
+        return pivot;
+    }
+
+    /**
+     * Fixes the sizes and the leaf count after a rotation lifted the pivot above the node.
+     * Only these two nodes can change between leaf and parent.
+     */
+    private void rotated(Node<T> node, Node<T> pivot, boolean pivotWasLeaf) {
+        pivot.setSize(node.getSize());
+        node.setSize(sizeOf(node.getLeft()) + sizeOf(node.getRight()) + 1);
+        leafCount += (isLeaf(node) ? 1 : 0) - (pivotWasLeaf ? 1 : 0);
+    }
+
+    /**
+     * Replaces the child of a parent, or the root if the parent is null.
      */
-    private Node<T> findMin(Node<T> node) {
-        while (node.getLeft() != null) {
-            node = node.getLeft();
+    private void replaceChild(Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.getLeft() == oldChild) {
+            parent.setLeft(newChild);
+        } else {
+            parent.setRight(newChild);
         }
-        return node;
     }
 
     /**
-     * Performs an in-order traversal of the tree.
+     * Returns an iterator over the values in ascending order.
+     *
+     * @return the iterator
      */
-    public void inOrderTraversal() {
-        inOrderTraversal(root);
+    @Override
+    public Iterator<T> iterator() {
+        return iterator(TraversalOrder.IN_ORDER);
+    }
+
+    /**
+     * Returns an iterator over the values in the given order. It uses an explicit stack instead
+     * of recursion and allocates nothing per value. The tree must not be modified while it is
+     * being iterated.
+     *
+     * @param order the traversal order
+     * @return the iterator
+     */
+    public Iterator<T> iterator(TraversalOrder order) {
+        return new TreeIterator<>(root, order, Node::getLeft, Node::getRight, Node::getData);
     }
 
-    private void inOrderTraversal(Node<T> node) {
-        if (node != null) {
-            inOrderTraversal(node.getLeft());
-            System.out.print(" " + node.getData());
-            inOrderTraversal(node.getRight());
+    /**
+     * Returns a spliterator over the values in ascending order that splits along the tree.
+     *
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator<>(root, parallelShape(), true, countNodes(), Spliterator.SORTED);
+    }
+
+    /**
+     * Returns a spliterator over the values in the given order.
+     *
+     * @param order the traversal order
+     * @return the spliterator
+     */
+    public Spliterator<T> spliterator(TraversalOrder order) {
+        if (order == TraversalOrder.IN_ORDER) {
+            return spliterator();
         }
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        return Spliterators.spliterator(iterator(order), countNodes(), characteristics);
     }
 
     /**
-     * Performs a pre-order traversal of the tree.
+     * Applies an action to every value in the given order.
+     *
+     * @param order  the traversal order
+     * @param action the action to apply
      */
-    public void preOrderTraversal() {
-        preOrderTraversal(root);
+    public void forEach(TraversalOrder order, Consumer<? super T> action) {
+        Iterator<T> iterator = iterator(order);
+        while (iterator.hasNext()) {
+            action.accept(iterator.next());
+        }
     }
 
-    private void preOrderTraversal(Node<T> node) {
-        if (node != null) {
-            System.out.print(" " + node.getData());
-            preOrderTraversal(node.getLeft());
-            preOrderTraversal(node.getRight());
+    /**
+     * Applies an action to the values in the given order for as long as it returns true.
+     *
+     * @param order  the traversal order
+     * @param action the action to apply; returning false stops the traversal
+     * @return true if every value was visited, false if the action stopped the traversal
+     */
+    public boolean forEachWhile(TraversalOrder order, Predicate<? super T> action) {
+        Iterator<T> iterator = iterator(order);
+        while (iterator.hasNext()) {
+            if (!action.test(iterator.next())) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
-     * Performs a post-order traversal of the tree.
+     * Returns a sequential stream of the values in ascending order.
+     *
+     * @return the stream
      */
-    public void postOrderTraversal() {
-        postOrderTraversal(root);
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the values in ascending order. Its spliterator splits
+     * along the tree, using the subtree sizes to report exact sizes.
+     *
+     * @return the stream
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Folds the values in ascending order on the common fork-join pool. Subtrees are folded
+     * as separate tasks down to a few thousand nodes, and the partial results are combined
+     * in order.
+     *
+     * @param identity    the initial value of every partial result, neutral for the combiner
+     * @param accumulator folds one value into a partial result
+     * @param combiner    joins two consecutive partial results; must be associative
+     * @param <R>         the type of the result
+     * @return the result
+     */
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super T, R> accumulator, BinaryOperator<R> combiner) {
+        return ForkJoinPool.commonPool().invoke(new TreeFoldTask<>(root, parallelShape(), identity, accumulator, combiner));
     }
 
-    private void postOrderTraversal(Node<T> node) {
-        if (node != null) {
-            postOrderTraversal(node.getLeft());
-            postOrderTraversal(node.getRight());
-            System.out.print(" " + node.getData());
+    /**
+     * Applies an action to every value on the common fork-join pool, in no particular order.
+     *
+     * @param action the action to apply; it must be safe to call from several threads
+     */
+    public void parallelForEach(Consumer<? super T> action) {
+        parallelReduce(null, (ignored, value) -> {
+            action.accept(value);
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * Counts the values that satisfy a predicate on the common fork-join pool.
+     *
+     * @param predicate the condition to test; it must be safe to call from several threads
+     * @return the number of matching values
+     */
+    public long parallelCount(Predicate<? super T> predicate) {
+        return parallelReduce(0L, (count, value) -> predicate.test(value) ? count + 1 : count, Long::sum);
+    }
+
+    private TreeFoldTask.Shape<Node<T>, T> parallelShape() {
+        return new TreeFoldTask.Shape<>(Node::getLeft, Node::getRight, Node::getData, Node::getSize, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Takes an immutable snapshot of the tree laid out for fast lookups, in O(n). Every value
+     * is mapped to itself, so {@code get} returns the stored value equal to the one searched.
+     *
+     * @return the snapshot
+     * @throws IllegalStateException if the tree has more than 2<sup>30</sup> - 1 values
+     */
+    public ForgeFrozenTree<T, T> freeze() {
+        Object[] slots = ForgeFrozenTree.layout(countNodes(), iterator());
+        return new ForgeFrozenTree<>(slots, slots);
+    }
+
+    /**
+     * Takes an immutable snapshot of the tree with primitive keys, in O(n).
+     *
+     * @param key maps each value to its key; it must preserve the order of the values
+     * @return the snapshot
+     * @throws IllegalArgumentException if the keys do not keep the values strictly increasing
+     *                                  or the tree has more than 2<sup>30</sup> - 1 values
+     */
+    public ForgeFrozenLongTree freeze(ToLongFunction<? super T> key) {
+        long[] sorted = new long[countNodes()];
+        int i = 0;
+        for (T value : this) {
+            sorted[i++] = key.applyAsLong(value);
         }
+        return ForgeFrozenLongTree.fromSorted(sorted);
+    }
+
+    /**
+     * Performs an in-order traversal of the tree.
+     */
+    public void inOrderTraversal() {
+        forEach(TraversalOrder.IN_ORDER, value -> System.out.print(" " + value));
+    }
+
+    /**
+     * Performs a pre-order traversal of the tree.
+     */
+    public void preOrderTraversal() {
+        forEach(TraversalOrder.PRE_ORDER, value -> System.out.print(" " + value));
     }
 
     /**
-     * Counts the number of leaves in the tree.
+     * Performs a post-order traversal of the tree.
+     */
+    public void postOrderTraversal() {
+        forEach(TraversalOrder.POST_ORDER, value -> System.out.print(" " + value));
+    }
+
+    /**
+     * Counts the number of leaves in the tree, in O(1).
      *
      * @return the number of leaves
      */
     public int countLeaves() {
-        return countLeaves(root);
+        return leafCount;
     }
 
-    private int countLeaves(Node<T> node) {
-        if (node == null) {
-            return 0;
-        }
-        if (node.getLeft() == null && node.getRight() == null) {
-            return 1;
+    /**
+     * Counts the number of nodes in the tree, in O(1).
+     *
+     * @return the number of nodes
+     */
+    public int countNodes() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Counts the number of parent nodes in the tree, in O(1).
+     *
+     * @return the number of parent nodes
+     */
+    public int countParents() {
+        return countNodes() - countLeaves();
+    }
+
+    /**
+     * Returns the number of values in the tree that are smaller than the given value,
+     * in O(height).
+     *
+     * @param value the value to rank
+     * @return the rank of the value, or -1 if the value is null
+     */
+    public int rank(T value) {
+        if (value == null) {
+            return -1;
         }
-        return countLeaves(node.getLeft()) + countLeaves(node.getRight());
+        return countBelow(value, false);
     }
 
     /**
-     * Counts the number of nodes in the tree.
+     * Returns the value with the given rank, where rank 0 is the smallest value, in O(height).
      *
-     * @return the number of nodes
+     * @param k the rank of the value
+     * @return the value, or null if the rank is out of range
      */
-    public int countNodes() {
-        return countNodes(root);
+    public T select(int k) {
+        if (k < 0 || k >= countNodes()) {
+            return null;
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = sizeOf(node.getLeft());
+            if (k < leftSize) {
+                node = node.getLeft();
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                node = node.getRight();
+            } else {
+                return node.getData();
+            }
+        }
     }
 
-    private int countNodes(Node<T> node) {
-        if (node == null) {
+    /**
+     * Counts the values between two bounds, both inclusive, in O(height).
+     *
+     * @param low  the lower bound
+     * @param high the upper bound
+     * @return the number of values in the range, or 0 if a bound is null or the range is empty
+     */
+    public int countInRange(T low, T high) {
+        if (low == null || high == null || low.compareTo(high) > 0) {
             return 0;
         }
-        return countNodes(node.getLeft()) + countNodes(node.getRight()) + 1;
+        return countBelow(high, true) - countBelow(low, false);
     }
 
     /**
-     * Counts the number of parent nodes in the tree.
-     *
-     * @return the number of parent nodes
+     * Counts the values smaller than a bound, or smaller than or equal to it if inclusive.
      */
-    public int countParents() {
-        return countNodes() - countLeaves();
+    private int countBelow(T bound, boolean inclusive) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = bound.compareTo(node.getData());
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                node = node.getLeft();
+            } else {
+                count += sizeOf(node.getLeft()) + 1;
+                node = node.getRight();
+            }
+        }
+        return count;
     }
 
     /**
@@ -222,6 +727,7 @@ public class ForgeBinaryTree<T extends Comparable<T>> {
      */
     public void clear() {
         root = null;
+        maxSize = leafCount = 0;
     }
     
     /**
@@ -282,4 +788,44 @@ public class ForgeBinaryTree<T extends Comparable<T>> {
             System.out.print("    ");
         }
     }
+
+    /**
+     * A growable stack of nodes, holding the path from the root during iterative operations.
+     */
+    private static final class Path<T> {
+        private Node<T>[] nodes;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Path() {
+            nodes = (Node<T>[]) new Node<?>[32];
+        }
+
+        void push(Node<T> node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+
+        Node<T> pop() {
+            return nodes[--size];
+        }
+
+        Node<T> peek() {
+            return size == 0 ? null : nodes[size - 1];
+        }
+
+        Node<T> get(int index) {
+            return nodes[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
 }
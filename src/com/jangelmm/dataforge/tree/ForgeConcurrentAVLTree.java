@@ -0,0 +1,828 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ForgeConcurrentAVLTree is a thread-safe AVL map for many concurrent readers and writers,
+ * following the optimistic relaxed-balance tree of Bronson, Casper, Chafi and Olukotun,
+ * "A Practical Concurrent Binary Search Tree" (PPoPP 2010).
+ * <p>
+ * Lookups take no locks. Every node carries a version number that a rotation marks as
+ * shrinking while it moves keys out of the node's subtree and bumps when it is done. A search
+ * reads the version of each node before following a child link and checks it again afterwards,
+ * hand over hand; if a rotation got in between, the search retries from the last node whose
+ * version is still valid instead of from the root. Writers lock only the nodes whose links
+ * they change: the parent of an inserted or unlinked node, or the parent and the two or three
+ * nodes of a rotation. Removing a node with two children only clears its value and leaves it in place
+ * as a routing node, which is unlinked later once it has at most one child.
+ * <p>
+ * Keys and values must not be null; a null value marks a routing node internally.
+ *
+ * @param <K> the type of keys maintained by this tree
+ * @param <V> the type of mapped values
+ */
+public class ForgeConcurrentAVLTree<K extends Comparable<K>, V> {
+
+    private static final long UNLINKED = 1L;
+    private static final long SHRINKING = 2L;
+    private static final long SHRINK_COUNT_INCR = 4L;
+
+    private static final int SPIN_COUNT = 100;
+
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private static final Object RETRY = new Object();
+
+    /**
+     * A sentinel above the root, which is its right child. It is never rotated or unlinked,
+     * so its version never changes.
+     */
+    private final ConcurrentNode<K, V> rootHolder = new ConcurrentNode<>(null, null, null, 0);
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Constructs an empty ForgeConcurrentAVLTree.
+     */
+    public ForgeConcurrentAVLTree() {
+    }
+
+    /**
+     * Returns the value mapped to a key, without locking.
+     *
+     * @param key the key to search for
+     * @return the value, or null if the key is not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        return (V) attemptGet(key, rootHolder, 1, 0);
+    }
+
+    /**
+     * Checks if a key is present in the tree, without locking.
+     *
+     * @param key the key to search for
+     * @return true if the key is found, false otherwise
+     */
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value, replacing the previous value if the key is present.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the previous value, or null if there was none or an argument was null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            return null;
+        }
+        Object previous = attemptPut(key, value, rootHolder, 1, 0);
+        if (previous == null) {
+            count.increment();
+        }
+        return (V) previous;
+    }
+
+    /**
+     * Removes the mapping for a key.
+     *
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not found
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        Object previous = attemptRemove(key, rootHolder, 1, 0);
+        if (previous != null) {
+            count.decrement();
+        }
+        return (V) previous;
+    }
+
+    /**
+     * Returns the number of mappings. While other threads are writing, the result is only an
+     * estimate.
+     *
+     * @return the number of mappings
+     */
+    public int size() {
+        return count.intValue();
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree has no mappings, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Checks that the tree is a valid AVL tree: keys in strictly increasing order, parent links
+     * consistent, heights correct and every balance factor between -1 and 1. Routing nodes
+     * with two children may remain. The result is only meaningful while no other thread is
+     * modifying the tree, since balance is restored lazily.
+     *
+     * @throws IllegalStateException describing the first violation found
+     */
+    public void checkInvariants() {
+        checkSubtree(rootHolder.right, rootHolder, null, null);
+    }
+
+    private int checkSubtree(ConcurrentNode<K, V> node, ConcurrentNode<K, V> parent, K lower, K upper) {
+        if (node == null) {
+            return 0;
+        }
+        K key = node.key;
+        if ((lower != null && key.compareTo(lower) <= 0) || (upper != null && key.compareTo(upper) >= 0)) {
+            throw new IllegalStateException("Key " + key + " is out of order");
+        }
+        if (node.parent != parent) {
+            throw new IllegalStateException("Node " + key + " has a stale parent link");
+        }
+        if (node.value == null && (node.left == null || node.right == null)) {
+            throw new IllegalStateException("Routing node " + key + " was not unlinked");
+        }
+        int leftHeight = checkSubtree(node.left, node, lower, key);
+        int rightHeight = checkSubtree(node.right, node, key, upper);
+        int expected = 1 + Math.max(leftHeight, rightHeight);
+        if (node.height != expected) {
+            throw new IllegalStateException("Node " + key + " stores height " + node.height + " instead of " + expected);
+        }
+        if (Math.abs(leftHeight - rightHeight) > 1) {
+            throw new IllegalStateException("Node " + key + " has balance factor " + (leftHeight - rightHeight));
+        }
+        return expected;
+    }
+
+    // Search
+
+    /**
+     * Searches the subtree in direction {@code dir} of a node that had version {@code nodeVersion}
+     * when the caller followed the link to it.
+     *
+     * @return the value, null if absent, or RETRY if the node changed and the caller must retry
+     */
+    private Object attemptGet(K key, ConcurrentNode<K, V> node, int dir, long nodeVersion) {
+        while (true) {
+            ConcurrentNode<K, V> child = node.child(dir);
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+            if (child == null) {
+                return null;
+            }
+            int nextDir = key.compareTo(child.key);
+            if (nextDir == 0) {
+                return child.value;
+            }
+            long childVersion = child.version;
+            if ((childVersion & SHRINKING) != 0) {
+                waitUntilNotChanging(child);
+            } else if (childVersion != UNLINKED && child == node.child(dir)) {
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+                Object result = attemptGet(key, child, nextDir, childVersion);
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for a rotation that shrinks a node to finish, by spinning briefly and then by
+     * acquiring its lock, which the rotation holds.
+     */
+    private static void waitUntilNotChanging(ConcurrentNode<?, ?> node) {
+        long version = node.version;
+        if ((version & SHRINKING) != 0) {
+            int i = 0;
+            while (node.version == version && i < SPIN_COUNT) {
+                Thread.onSpinWait();
+                i++;
+            }
+            if (i == SPIN_COUNT) {
+                synchronized (node) {
+                    // The rotation has released the node
+                }
+            }
+        }
+    }
+
+    // Insertion and update
+
+    private Object attemptPut(K key, V value, ConcurrentNode<K, V> node, int dir, long nodeVersion) {
+        Object result;
+        do {
+            result = RETRY;
+            ConcurrentNode<K, V> child = node.child(dir);
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+            if (child == null) {
+                result = attemptInsert(key, value, node, dir, nodeVersion);
+            } else {
+                int nextDir = key.compareTo(child.key);
+                if (nextDir == 0) {
+                    result = attemptUpdate(child, value);
+                } else {
+                    long childVersion = child.version;
+                    if ((childVersion & SHRINKING) != 0) {
+                        waitUntilNotChanging(child);
+                    } else if (childVersion != UNLINKED && child == node.child(dir)) {
+                        if (node.version != nodeVersion) {
+                            return RETRY;
+                        }
+                        result = attemptPut(key, value, child, nextDir, childVersion);
+                    }
+                }
+            }
+        } while (result == RETRY);
+        return result;
+    }
+
+    private Object attemptInsert(K key, V value, ConcurrentNode<K, V> node, int dir, long nodeVersion) {
+        synchronized (node) {
+            if (node.version != nodeVersion || node.child(dir) != null) {
+                return RETRY;
+            }
+            node.setChild(dir, new ConcurrentNode<>(key, value, node, 1));
+        }
+        fixHeightAndRebalance(node);
+        return null;
+    }
+
+    /**
+     * Replaces the value of a node, which revives it if it was a routing node.
+     */
+    private Object attemptUpdate(ConcurrentNode<K, V> node, V value) {
+        synchronized (node) {
+            if (node.version == UNLINKED) {
+                return RETRY;
+            }
+            Object previous = node.value;
+            node.value = value;
+            return previous;
+        }
+    }
+
+    // Removal
+
+    private Object attemptRemove(K key, ConcurrentNode<K, V> node, int dir, long nodeVersion) {
+        Object result;
+        do {
+            result = RETRY;
+            ConcurrentNode<K, V> child = node.child(dir);
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+            if (child == null) {
+                return null;
+            }
+            int nextDir = key.compareTo(child.key);
+            if (nextDir == 0) {
+                result = attemptRemoveNode(node, child);
+            } else {
+                long childVersion = child.version;
+                if ((childVersion & SHRINKING) != 0) {
+                    waitUntilNotChanging(child);
+                } else if (childVersion != UNLINKED && child == node.child(dir)) {
+                    if (node.version != nodeVersion) {
+                        return RETRY;
+                    }
+                    result = attemptRemove(key, child, nextDir, childVersion);
+                }
+            }
+        } while (result == RETRY);
+        return result;
+    }
+
+    /**
+     * Removes the value of a node. A node with at most one child is unlinked at once under the
+     * locks of its parent and itself; a node with two children becomes a routing node.
+     */
+    private Object attemptRemoveNode(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node) {
+        if (node.value == null) {
+            return null;
+        }
+        Object previous;
+        if (!canUnlink(node)) {
+            synchronized (node) {
+                if (node.version == UNLINKED || canUnlink(node)) {
+                    return RETRY;
+                }
+                previous = node.value;
+                node.value = null;
+            }
+        } else {
+            synchronized (parent) {
+                if (parent.version == UNLINKED || node.parent != parent) {
+                    return RETRY;
+                }
+                synchronized (node) {
+                    if (node.version == UNLINKED) {
+                        return RETRY;
+                    }
+                    previous = node.value;
+                    node.value = null;
+                    if (canUnlink(node)) {
+                        ConcurrentNode<K, V> splice = node.left == null ? node.right : node.left;
+                        if (parent.left == node) {
+                            parent.left = splice;
+                        } else {
+                            parent.right = splice;
+                        }
+                        if (splice != null) {
+                            splice.parent = parent;
+                        }
+                        node.version = UNLINKED;
+                    }
+                }
+            }
+            fixHeightAndRebalance(parent);
+        }
+        return previous;
+    }
+
+    private static boolean canUnlink(ConcurrentNode<?, ?> node) {
+        return node.left == null || node.right == null;
+    }
+
+    // Rebalancing
+
+    private static int height(ConcurrentNode<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Returns what a node needs: to be unlinked, to be rebalanced, nothing, or a new height,
+     * judged from unlocked reads.
+     */
+    private static int nodeCondition(ConcurrentNode<?, ?> node) {
+        ConcurrentNode<?, ?> left = node.left;
+        ConcurrentNode<?, ?> right = node.right;
+        if ((left == null || right == null) && node.value == null) {
+            return UNLINK_REQUIRED;
+        }
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int newHeight = 1 + Math.max(leftHeight, rightHeight);
+        int balance = leftHeight - rightHeight;
+        if (balance < -1 || balance > 1) {
+            return REBALANCE_REQUIRED;
+        }
+        return newHeight != node.height ? newHeight : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Walks up from a changed node, fixing heights, unlinking routing nodes and rotating. Each
+     * step locks only the nodes it modifies. Without restructuring, the walk stops at the first
+     * node that needs no repair. A rotation that returns early, to unlink or rotate a node
+     * below, has not refreshed the ancestor above it, so once anything has been restructured
+     * the walk checks every ancestor up to the root.
+     */
+    private void fixHeightAndRebalance(ConcurrentNode<K, V> node) {
+        boolean restructured = false;
+        while (node != null && node.parent != null) {
+            int condition = nodeCondition(node);
+            if (node.version == UNLINKED) {
+                return;
+            }
+            ConcurrentNode<K, V> next;
+            if (condition == NOTHING_REQUIRED) {
+                next = null;
+            } else if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+                synchronized (node) {
+                    next = fixHeightLocked(node);
+                }
+            } else {
+                ConcurrentNode<K, V> parent = node.parent;
+                synchronized (parent) {
+                    if (parent.version != UNLINKED && node.parent == parent) {
+                        synchronized (node) {
+                            next = rebalanceLocked(parent, node);
+                        }
+                        restructured = true;
+                    } else {
+                        next = node;
+                    }
+                }
+            }
+            if (next == null) {
+                if (!restructured) {
+                    return;
+                }
+                next = node.parent;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Fixes the height of a locked node and returns the next node to repair, or null.
+     */
+    private static <K, V> ConcurrentNode<K, V> fixHeightLocked(ConcurrentNode<K, V> node) {
+        int condition = nodeCondition(node);
+        switch (condition) {
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                return node;
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = condition;
+                return node.parent;
+        }
+    }
+
+    /**
+     * Repairs a locked node whose locked parent is given, and returns the next node to repair.
+     */
+    private static <K, V> ConcurrentNode<K, V> rebalanceLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node) {
+        ConcurrentNode<K, V> left = node.left;
+        ConcurrentNode<K, V> right = node.right;
+        if ((left == null || right == null) && node.value == null) {
+            return attemptUnlinkLocked(parent, node) ? fixHeightLocked(parent) : node;
+        }
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int newHeight = 1 + Math.max(leftHeight, rightHeight);
+        int balance = leftHeight - rightHeight;
+        if (balance > 1) {
+            return rebalanceToRightLocked(parent, node, left, rightHeight);
+        }
+        if (balance < -1) {
+            return rebalanceToLeftLocked(parent, node, right, leftHeight);
+        }
+        if (newHeight != node.height) {
+            node.height = newHeight;
+            return fixHeightLocked(parent);
+        }
+        return null;
+    }
+
+    private static <K, V> boolean attemptUnlinkLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node) {
+        ConcurrentNode<K, V> parentLeft = parent.left;
+        if (parentLeft != node && parent.right != node) {
+            return false;
+        }
+        ConcurrentNode<K, V> left = node.left;
+        ConcurrentNode<K, V> right = node.right;
+        if (left != null && right != null) {
+            return false;
+        }
+        ConcurrentNode<K, V> splice = left != null ? left : right;
+        if (parentLeft == node) {
+            parent.left = splice;
+        } else {
+            parent.right = splice;
+        }
+        if (splice != null) {
+            splice.parent = parent;
+        }
+        node.version = UNLINKED;
+        node.value = null;
+        return true;
+    }
+
+    private static <K, V> ConcurrentNode<K, V> rebalanceToRightLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node,
+                                                                      ConcurrentNode<K, V> left, int rightHeight) {
+        synchronized (left) {
+            if (left.height - rightHeight <= 1) {
+                return node;
+            }
+            ConcurrentNode<K, V> leftRight = left.right;
+            int leftLeftHeight = height(left.left);
+            int leftRightHeight = height(leftRight);
+            if (leftLeftHeight >= leftRightHeight) {
+                return rotateRightLocked(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+            }
+            synchronized (leftRight) {
+                leftRightHeight = leftRight.height;
+                if (leftLeftHeight >= leftRightHeight) {
+                    return rotateRightLocked(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+                }
+                int leftRightLeftHeight = height(leftRight.left);
+                int balance = leftLeftHeight - leftRightLeftHeight;
+                if (balance >= -1 && balance <= 1) {
+                    return rotateRightOverLeftLocked(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightLeftHeight);
+                }
+            }
+            return rebalanceToLeftLocked(node, left, leftRight, leftLeftHeight);
+        }
+    }
+
+    private static <K, V> ConcurrentNode<K, V> rebalanceToLeftLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node,
+                                                                     ConcurrentNode<K, V> right, int leftHeight) {
+        synchronized (right) {
+            if (right.height - leftHeight <= 1) {
+                return node;
+            }
+            ConcurrentNode<K, V> rightLeft = right.left;
+            int rightLeftHeight = height(rightLeft);
+            int rightRightHeight = height(right.right);
+            if (rightRightHeight >= rightLeftHeight) {
+                return rotateLeftLocked(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+            }
+            synchronized (rightLeft) {
+                rightLeftHeight = rightLeft.height;
+                if (rightRightHeight >= rightLeftHeight) {
+                    return rotateLeftLocked(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+                }
+                int rightLeftRightHeight = height(rightLeft.right);
+                int balance = rightRightHeight - rightLeftRightHeight;
+                if (balance >= -1 && balance <= 1) {
+                    return rotateLeftOverRightLocked(parent, node, leftHeight, right, rightLeft, rightRightHeight, rightLeftRightHeight);
+                }
+            }
+            return rebalanceToRightLocked(node, right, rightLeft, rightRightHeight);
+        }
+    }
+
+    /**
+     * Rotates the left child of a node above it. The node loses its left subtree, so it is
+     * marked shrinking for the duration.
+     */
+    private static <K, V> ConcurrentNode<K, V> rotateRightLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node,
+                                                                 ConcurrentNode<K, V> left, int rightHeight, int leftLeftHeight,
+                                                                 ConcurrentNode<K, V> leftRight, int leftRightHeight) {
+        long nodeVersion = node.version;
+        ConcurrentNode<K, V> parentLeft = parent.left;
+        node.version = nodeVersion | SHRINKING;
+
+        node.left = leftRight;
+        if (leftRight != null) {
+            leftRight.parent = node;
+        }
+        left.right = node;
+        node.parent = left;
+        if (parentLeft == node) {
+            parent.left = left;
+        } else {
+            parent.right = left;
+        }
+        left.parent = parent;
+
+        // Re-read after relinking: a height fix racing with us either saw the new parent or wrote before this read
+        leftRightHeight = height(leftRight);
+        rightHeight = height(node.right);
+        leftLeftHeight = height(left.left);
+        int nodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+        node.height = nodeHeight;
+        left.height = 1 + Math.max(leftLeftHeight, nodeHeight);
+
+        node.version = nodeVersion + SHRINK_COUNT_INCR;
+
+        int nodeBalance = leftRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((leftRight == null || rightHeight == 0) && node.value == null) {
+            return node;
+        }
+        int leftBalance = leftLeftHeight - nodeHeight;
+        if (leftBalance < -1 || leftBalance > 1) {
+            return left;
+        }
+        if (leftLeftHeight == 0 && left.value == null) {
+            return left;
+        }
+        return fixHeightLocked(parent);
+    }
+
+    /**
+     * Mirror image of {@link #rotateRightLocked}.
+     */
+    private static <K, V> ConcurrentNode<K, V> rotateLeftLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node,
+                                                                int leftHeight, ConcurrentNode<K, V> right,
+                                                                ConcurrentNode<K, V> rightLeft, int rightLeftHeight,
+                                                                int rightRightHeight) {
+        long nodeVersion = node.version;
+        ConcurrentNode<K, V> parentLeft = parent.left;
+        node.version = nodeVersion | SHRINKING;
+
+        node.right = rightLeft;
+        if (rightLeft != null) {
+            rightLeft.parent = node;
+        }
+        right.left = node;
+        node.parent = right;
+        if (parentLeft == node) {
+            parent.left = right;
+        } else {
+            parent.right = right;
+        }
+        right.parent = parent;
+
+        leftHeight = height(node.left);
+        rightLeftHeight = height(rightLeft);
+        rightRightHeight = height(right.right);
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+        node.height = nodeHeight;
+        right.height = 1 + Math.max(nodeHeight, rightRightHeight);
+
+        node.version = nodeVersion + SHRINK_COUNT_INCR;
+
+        int nodeBalance = leftHeight - rightLeftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((rightLeft == null || leftHeight == 0) && node.value == null) {
+            return node;
+        }
+        int rightBalance = nodeHeight - rightRightHeight;
+        if (rightBalance < -1 || rightBalance > 1) {
+            return right;
+        }
+        if (rightRightHeight == 0 && right.value == null) {
+            return right;
+        }
+        return fixHeightLocked(parent);
+    }
+
+    /**
+     * Double rotation: the right child of the left child rises above both. The node and its
+     * left child both lose keys, so both are marked shrinking.
+     */
+    private static <K, V> ConcurrentNode<K, V> rotateRightOverLeftLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node,
+                                                                         ConcurrentNode<K, V> left, int rightHeight,
+                                                                         int leftLeftHeight, ConcurrentNode<K, V> leftRight,
+                                                                         int leftRightLeftHeight) {
+        long nodeVersion = node.version;
+        long leftVersion = left.version;
+        ConcurrentNode<K, V> parentLeft = parent.left;
+        ConcurrentNode<K, V> leftRightLeft = leftRight.left;
+        ConcurrentNode<K, V> leftRightRight = leftRight.right;
+        int leftRightRightHeight = height(leftRightRight);
+
+        node.version = nodeVersion | SHRINKING;
+        left.version = leftVersion | SHRINKING;
+
+        node.left = leftRightRight;
+        if (leftRightRight != null) {
+            leftRightRight.parent = node;
+        }
+        left.right = leftRightLeft;
+        if (leftRightLeft != null) {
+            leftRightLeft.parent = left;
+        }
+        leftRight.left = left;
+        left.parent = leftRight;
+        leftRight.right = node;
+        node.parent = leftRight;
+        if (parentLeft == node) {
+            parent.left = leftRight;
+        } else {
+            parent.right = leftRight;
+        }
+        leftRight.parent = parent;
+
+        leftRightRightHeight = height(leftRightRight);
+        leftRightLeftHeight = height(leftRightLeft);
+        rightHeight = height(node.right);
+        leftLeftHeight = height(left.left);
+        int nodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+        node.height = nodeHeight;
+        int newLeftHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+        left.height = newLeftHeight;
+        leftRight.height = 1 + Math.max(newLeftHeight, nodeHeight);
+
+        node.version = nodeVersion + SHRINK_COUNT_INCR;
+        left.version = leftVersion + SHRINK_COUNT_INCR;
+
+        if ((left.left == null || leftRightLeft == null) && left.value == null) {
+            // A routing node left with one child: unlink it while it is still locked
+            attemptUnlinkLocked(leftRight, left);
+            newLeftHeight = height(leftRight.left);
+            leftRight.height = 1 + Math.max(newLeftHeight, nodeHeight);
+        }
+
+        int nodeBalance = leftRightRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((leftRightRight == null || rightHeight == 0) && node.value == null) {
+            return node;
+        }
+        int leftRightBalance = newLeftHeight - nodeHeight;
+        if (leftRightBalance < -1 || leftRightBalance > 1) {
+            return leftRight;
+        }
+        return fixHeightLocked(parent);
+    }
+
+    /**
+     * Mirror image of {@link #rotateRightOverLeftLocked}.
+     */
+    private static <K, V> ConcurrentNode<K, V> rotateLeftOverRightLocked(ConcurrentNode<K, V> parent, ConcurrentNode<K, V> node,
+                                                                         int leftHeight, ConcurrentNode<K, V> right,
+                                                                         ConcurrentNode<K, V> rightLeft, int rightRightHeight,
+                                                                         int rightLeftRightHeight) {
+        long nodeVersion = node.version;
+        long rightVersion = right.version;
+        ConcurrentNode<K, V> parentLeft = parent.left;
+        ConcurrentNode<K, V> rightLeftLeft = rightLeft.left;
+        ConcurrentNode<K, V> rightLeftRight = rightLeft.right;
+        int rightLeftLeftHeight = height(rightLeftLeft);
+
+        node.version = nodeVersion | SHRINKING;
+        right.version = rightVersion | SHRINKING;
+
+        node.right = rightLeftLeft;
+        if (rightLeftLeft != null) {
+            rightLeftLeft.parent = node;
+        }
+        right.left = rightLeftRight;
+        if (rightLeftRight != null) {
+            rightLeftRight.parent = right;
+        }
+        rightLeft.right = right;
+        right.parent = rightLeft;
+        rightLeft.left = node;
+        node.parent = rightLeft;
+        if (parentLeft == node) {
+            parent.left = rightLeft;
+        } else {
+            parent.right = rightLeft;
+        }
+        rightLeft.parent = parent;
+
+        rightLeftLeftHeight = height(rightLeftLeft);
+        rightLeftRightHeight = height(rightLeftRight);
+        leftHeight = height(node.left);
+        rightRightHeight = height(right.right);
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+        node.height = nodeHeight;
+        int newRightHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+        right.height = newRightHeight;
+        rightLeft.height = 1 + Math.max(nodeHeight, newRightHeight);
+
+        node.version = nodeVersion + SHRINK_COUNT_INCR;
+        right.version = rightVersion + SHRINK_COUNT_INCR;
+
+        if ((right.right == null || rightLeftRight == null) && right.value == null) {
+            attemptUnlinkLocked(rightLeft, right);
+            newRightHeight = height(rightLeft.right);
+            rightLeft.height = 1 + Math.max(nodeHeight, newRightHeight);
+        }
+
+        int nodeBalance = leftHeight - rightLeftLeftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((rightLeftLeft == null || leftHeight == 0) && node.value == null) {
+            return node;
+        }
+        int rightLeftBalance = nodeHeight - newRightHeight;
+        if (rightLeftBalance < -1 || rightLeftBalance > 1) {
+            return rightLeft;
+        }
+        return fixHeightLocked(parent);
+    }
+
+    /**
+     * A node of the tree. Links, height and value are volatile so that searches can read them
+     * without locks; they are only written while the node is locked.
+     */
+    private static final class ConcurrentNode<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile ConcurrentNode<K, V> parent;
+        private volatile ConcurrentNode<K, V> left;
+        private volatile ConcurrentNode<K, V> right;
+        private volatile int height;
+        private volatile long version;
+
+        ConcurrentNode(K key, V value, ConcurrentNode<K, V> parent, int height) {
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+            this.height = height;
+        }
+
+        ConcurrentNode<K, V> child(int dir) {
+            return dir < 0 ? left : right;
+        }
+
+        void setChild(int dir, ConcurrentNode<K, V> child) {
+            if (dir < 0) {
+                left = child;
+            } else {
+                right = child;
+            }
+        }
+    }
+}
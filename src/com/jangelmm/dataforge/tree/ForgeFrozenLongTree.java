@@ -0,0 +1,86 @@
+package com.jangelmm.dataforge.tree;
+
+/**
+ * ForgeFrozenLongTree is the primitive counterpart of {@link ForgeFrozenTree}: an immutable set
+ * of {@code long} keys in Eytzinger order, kept in a {@code long[]} so that neither the keys
+ * nor their comparisons go through boxed objects. It is built from sorted keys or with
+ * {@link ForgeBinaryTree#freeze(java.util.function.ToLongFunction)} and
+ * {@link ForgeAVLTree#freeze(java.util.function.ToLongFunction)}.
+ */
+public final class ForgeFrozenLongTree {
+
+    private final long[] keys;
+
+    private ForgeFrozenLongTree(long[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Builds a snapshot from keys sorted in strictly increasing order, in O(n).
+     *
+     * @param sorted the sorted keys
+     * @return the new snapshot
+     * @throws IllegalArgumentException if the keys are not strictly increasing or there are
+     *                                  more than 2<sup>30</sup> - 1 of them
+     */
+    public static ForgeFrozenLongTree fromSorted(long[] sorted) {
+        if (sorted.length > ForgeFrozenTree.MAX_SIZE) {
+            throw new IllegalArgumentException("Too many keys to freeze: " + sorted.length);
+        }
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1] >= sorted[i]) {
+                throw new IllegalArgumentException("Keys must be strictly increasing at index " + i);
+            }
+        }
+        long[] keys = new long[sorted.length + 1];
+        fill(keys, 1, sorted, 0);
+        return new ForgeFrozenLongTree(keys);
+    }
+
+    /**
+     * Checks if a key is present in the snapshot, with the same descent as
+     * {@link ForgeFrozenTree#contains(Comparable)}.
+     *
+     * @param key the key to search for
+     * @return true if the key is found, false otherwise
+     */
+    public boolean contains(long key) {
+        int size = keys.length - 1;
+        int index = 1;
+        while (index <= size) {
+            index = 2 * index + (keys[index] < key ? 1 : 0);
+        }
+        index >>>= Integer.numberOfTrailingZeros(~index) + 1;
+        return index != 0 && keys[index] == key;
+    }
+
+    /**
+     * Returns the number of keys in the snapshot.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return keys.length - 1;
+    }
+
+    /**
+     * Checks if the snapshot is empty.
+     *
+     * @return true if the snapshot is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return keys.length == 1;
+    }
+
+    /**
+     * Fills the subtree rooted at an index in order and returns the position of the next sorted key.
+     */
+    private static int fill(long[] keys, int index, long[] sorted, int next) {
+        if (index < keys.length) {
+            next = fill(keys, 2 * index, sorted, next);
+            keys[index] = sorted[next++];
+            next = fill(keys, 2 * index + 1, sorted, next);
+        }
+        return next;
+    }
+}
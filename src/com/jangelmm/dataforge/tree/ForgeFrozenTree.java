@@ -0,0 +1,117 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.Iterator;
+
+/**
+ * ForgeFrozenTree is an immutable snapshot of a search tree, taken with
+ * {@link ForgeBinaryTree#freeze()} or {@link ForgeAVLTree#freeze()}. The keys are stored in a
+ * single array in Eytzinger order, the layout of a binary heap: the root at index 1 and the
+ * children of index k at 2k and 2k + 1. The first levels of every search share a few cache
+ * lines, and the next index is computed from the result of the comparison instead of being
+ * read from a node, so a lookup walks one contiguous array rather than chasing a pointer per level.
+ * <p>
+ * The snapshot does not see later changes to the tree it was taken from. It holds at most
+ * 2<sup>30</sup> - 1 entries.
+ *
+ * @param <K> the type of keys in the snapshot
+ * @param <V> the type of mapped values
+ */
+public final class ForgeFrozenTree<K extends Comparable<K>, V> {
+    static final int MAX_SIZE = (1 << 30) - 1;
+
+    private final Object[] keys;
+    private final Object[] values;
+
+    /**
+     * Wraps arrays already in Eytzinger order, with index 0 unused. The two arrays may be the
+     * same one when every key is its own value.
+     */
+    ForgeFrozenTree(Object[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Checks if a key is present in the snapshot.
+     *
+     * @param key the key to search for
+     * @return true if the key is found, false otherwise
+     */
+    public boolean contains(K key) {
+        return indexOf(key) != 0;
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key the key to search for
+     * @return the value, or null if the key is not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int index = indexOf(key);
+        return index == 0 ? null : (V) values[index];
+    }
+
+    /**
+     * Returns the number of entries in the snapshot.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return keys.length - 1;
+    }
+
+    /**
+     * Checks if the snapshot is empty.
+     *
+     * @return true if the snapshot is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return keys.length == 1;
+    }
+
+    /**
+     * Returns the index of a key, or 0 if it is absent. The descent always runs to the bottom of
+     * the layout, turning right while the probed key is smaller; the last left turn, recovered
+     * by dropping the trailing right turns, is the first key not smaller than the one searched.
+     */
+    @SuppressWarnings("unchecked")
+    private int indexOf(K key) {
+        if (key == null) {
+            return 0;
+        }
+        int size = keys.length - 1;
+        int index = 1;
+        while (index <= size) {
+            index = 2 * index + (((K) keys[index]).compareTo(key) < 0 ? 1 : 0);
+        }
+        index >>>= Integer.numberOfTrailingZeros(~index) + 1;
+        return index != 0 && key.compareTo((K) keys[index]) == 0 ? index : 0;
+    }
+
+    /**
+     * Lays out the first {@code size} items of an in-order iterator in Eytzinger order.
+     *
+     * @throws IllegalStateException if there are more than {@link #MAX_SIZE} items
+     */
+    static Object[] layout(int size, Iterator<?> items) {
+        if (size > MAX_SIZE) {
+            throw new IllegalStateException("Too many entries to freeze: " + size);
+        }
+        Object[] slots = new Object[size + 1];
+        fill(slots, 1, items);
+        return slots;
+    }
+
+    /**
+     * Fills the subtree rooted at an index in order; the recursion is as deep as the layout, about log n.
+     */
+    private static void fill(Object[] slots, int index, Iterator<?> items) {
+        if (index < slots.length) {
+            fill(slots, 2 * index, items);
+            slots[index] = items.next();
+            fill(slots, 2 * index + 1, items);
+        }
+    }
+}
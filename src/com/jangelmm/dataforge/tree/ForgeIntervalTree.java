@@ -0,0 +1,351 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ForgeIntervalTree stores closed intervals with attached values and finds every interval that
+ * overlaps a point or a range. It is an AVL tree ordered by lower endpoint, then upper endpoint,
+ * in which every node also records the greatest upper endpoint in its subtree. A query skips
+ * any subtree whose greatest endpoint lies before the range and stops at the first node that
+ * starts after it, so it costs O(min(n, k log n)) for k results instead of a scan of every
+ * interval. The bound is not O(log n + k): each result may sit at the end of its own path of
+ * non-matching nodes.
+ * <p>
+ * Each interval is stored once: inserting one with the same endpoints as a stored interval fails.
+ *
+ * @param <K> the type of the endpoints
+ * @param <V> the type of the attached values
+ */
+public class ForgeIntervalTree<K extends Comparable<K>, V> implements Iterable<Interval<K, V>> {
+
+    private IntervalNode<K, V> root;
+    private int size;
+
+    /**
+     * Constructs an empty ForgeIntervalTree.
+     */
+    public ForgeIntervalTree() {
+    }
+
+    /**
+     * Builds a balanced tree from a collection of intervals in O(n log n), sorting them once
+     * instead of rebalancing after every insertion.
+     *
+     * @param intervals the intervals to load
+     * @param <K>       the type of the endpoints
+     * @param <V>       the type of the attached values
+     * @return the new tree
+     * @throws IllegalArgumentException if two intervals have the same endpoints
+     */
+    public static <K extends Comparable<K>, V> ForgeIntervalTree<K, V> bulkLoad(Collection<Interval<K, V>> intervals) {
+        List<Interval<K, V>> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparing(Interval<K, V>::getLow).thenComparing(Interval::getHigh));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (compare(sorted.get(i - 1), sorted.get(i).getLow(), sorted.get(i).getHigh()) == 0) {
+                throw new IllegalArgumentException("Duplicate interval " + sorted.get(i));
+            }
+        }
+        ForgeIntervalTree<K, V> tree = new ForgeIntervalTree<>();
+        tree.root = buildBalanced(sorted, 0, sorted.size());
+        tree.size = sorted.size();
+        return tree;
+    }
+
+    private static <K extends Comparable<K>, V> IntervalNode<K, V> buildBalanced(List<Interval<K, V>> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        IntervalNode<K, V> node = new IntervalNode<>(sorted.get(middle));
+        node.left = buildBalanced(sorted, from, middle);
+        node.right = buildBalanced(sorted, middle + 1, to);
+        node.update();
+        return node;
+    }
+
+    /**
+     * Inserts an interval.
+     *
+     * @param low   the lower endpoint, inclusive
+     * @param high  the upper endpoint, inclusive
+     * @param value the attached value, may be null
+     * @return true if the interval was inserted, false if one with the same endpoints exists
+     * @throws IllegalArgumentException if an endpoint is null or low is greater than high
+     */
+    public boolean insert(K low, K high, V value) {
+        Interval<K, V> interval = new Interval<>(low, high, value);
+        int before = size;
+        root = insert(root, interval);
+        return size != before;
+    }
+
+    /**
+     * Removes the interval with the given endpoints.
+     *
+     * @param low  the lower endpoint
+     * @param high the upper endpoint
+     * @return true if the interval was removed, false if it was not found
+     */
+    public boolean remove(K low, K high) {
+        if (low == null || high == null) {
+            return false;
+        }
+        int before = size;
+        root = remove(root, low, high);
+        return size != before;
+    }
+
+    /**
+     * Returns the value attached to the interval with the given endpoints.
+     *
+     * @param low  the lower endpoint
+     * @param high the upper endpoint
+     * @return the value, or null if the interval is not found
+     */
+    public V get(K low, K high) {
+        if (low == null || high == null) {
+            return null;
+        }
+        IntervalNode<K, V> node = root;
+        while (node != null) {
+            int cmp = compare(node.interval, low, high);
+            if (cmp == 0) {
+                return node.interval.getValue();
+            }
+            node = cmp > 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Passes every interval that contains a point to an action, in order of lower endpoint.
+     *
+     * @param point  the point to look up
+     * @param action the action to apply to each overlapping interval
+     */
+    public void overlapping(K point, Consumer<? super Interval<K, V>> action) {
+        overlapping(point, point, action);
+    }
+
+    /**
+     * Passes every interval that shares at least one point with [low, high] to an action, in
+     * order of lower endpoint, without collecting them first.
+     *
+     * @param low    the lower endpoint of the range, inclusive
+     * @param high   the upper endpoint of the range, inclusive
+     * @param action the action to apply to each overlapping interval
+     */
+    public void overlapping(K low, K high, Consumer<? super Interval<K, V>> action) {
+        if (low != null && high != null && low.compareTo(high) <= 0) {
+            collect(root, low, high, action);
+        }
+    }
+
+    /**
+     * Returns every interval that contains a point, in order of lower endpoint.
+     *
+     * @param point the point to look up
+     * @return a new list with the overlapping intervals
+     */
+    public List<Interval<K, V>> overlapping(K point) {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Returns every interval that shares at least one point with [low, high], in order of
+     * lower endpoint.
+     *
+     * @param low  the lower endpoint of the range, inclusive
+     * @param high the upper endpoint of the range, inclusive
+     * @return a new list with the overlapping intervals
+     */
+    public List<Interval<K, V>> overlapping(K low, K high) {
+        List<Interval<K, V>> result = new ArrayList<>();
+        overlapping(low, high, result::add);
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the intervals in order of lower endpoint.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<Interval<K, V>> iterator() {
+        return new TreeIterator<>(root, TraversalOrder.IN_ORDER, node -> node.left, node -> node.right,
+                node -> node.interval);
+    }
+
+    /**
+     * Returns the number of intervals in the tree.
+     *
+     * @return the number of intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all intervals from the tree.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Visits the subtree in order, pruning subtrees that end before the range and stopping
+     * at the first node that starts after it.
+     */
+    private void collect(IntervalNode<K, V> node, K low, K high, Consumer<? super Interval<K, V>> action) {
+        while (node != null && node.max.compareTo(low) >= 0) {
+            collect(node.left, low, high, action);
+            if (node.interval.getLow().compareTo(high) > 0) {
+                return;
+            }
+            if (node.interval.getHigh().compareTo(low) >= 0) {
+                action.accept(node.interval);
+            }
+            node = node.right;
+        }
+    }
+
+    private IntervalNode<K, V> insert(IntervalNode<K, V> node, Interval<K, V> interval) {
+        if (node == null) {
+            size++;
+            return new IntervalNode<>(interval);
+        }
+        int cmp = compare(node.interval, interval.getLow(), interval.getHigh());
+        if (cmp == 0) {
+            return node;
+        }
+        if (cmp > 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return balance(node);
+    }
+
+    private IntervalNode<K, V> remove(IntervalNode<K, V> node, K low, K high) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(node.interval, low, high);
+        if (cmp > 0) {
+            node.left = remove(node.left, low, high);
+        } else if (cmp < 0) {
+            node.right = remove(node.right, low, high);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            IntervalNode<K, V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeMin(node.right);
+            successor.left = node.left;
+            successor.right = node.right;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private IntervalNode<K, V> removeMin(IntervalNode<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static <K extends Comparable<K>> int compare(Interval<K, ?> interval, K low, K high) {
+        int cmp = interval.getLow().compareTo(low);
+        return cmp != 0 ? cmp : interval.getHigh().compareTo(high);
+    }
+
+    private static <K extends Comparable<K>, V> IntervalNode<K, V> balance(IntervalNode<K, V> node) {
+        node.update();
+        int factor = heightOf(node.left) - heightOf(node.right);
+        if (factor > 1) {
+            if (heightOf(node.left.left) < heightOf(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (heightOf(node.right.right) < heightOf(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <K extends Comparable<K>, V> IntervalNode<K, V> rotateRight(IntervalNode<K, V> node) {
+        IntervalNode<K, V> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static <K extends Comparable<K>, V> IntervalNode<K, V> rotateLeft(IntervalNode<K, V> node) {
+        IntervalNode<K, V> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    private static int heightOf(IntervalNode<?, ?> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    /**
+     * A node of the tree: an interval, the AVL height and the greatest upper endpoint below it.
+     */
+    private static final class IntervalNode<K extends Comparable<K>, V> {
+        private final Interval<K, V> interval;
+        private IntervalNode<K, V> left, right;
+        private int height;
+        private K max;
+
+        IntervalNode(Interval<K, V> interval) {
+            this.interval = interval;
+            this.max = interval.getHigh();
+        }
+
+        void update() {
+            height = 1 + Math.max(heightOf(left), heightOf(right));
+            max = interval.getHigh();
+            if (left != null && left.max.compareTo(max) > 0) {
+                max = left.max;
+            }
+            if (right != null && right.max.compareTo(max) > 0) {
+                max = right.max;
+            }
+        }
+    }
+}
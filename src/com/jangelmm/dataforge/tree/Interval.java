@@ -0,0 +1,59 @@
+package com.jangelmm.dataforge.tree;
+
+/**
+ * An immutable closed interval [low, high] with an attached value, as stored in a
+ * {@link ForgeIntervalTree}.
+ *
+ * @param <K> the type of the endpoints
+ * @param <V> the type of the attached value
+ */
+public final class Interval<K extends Comparable<K>, V> {
+    private final K low;
+    private final K high;
+    private final V value;
+
+    /**
+     * Constructs an interval.
+     *
+     * @param low   the lower endpoint, inclusive
+     * @param high  the upper endpoint, inclusive
+     * @param value the attached value, may be null
+     * @throws IllegalArgumentException if an endpoint is null or low is greater than high
+     */
+    public Interval(K low, K high, V value) {
+        if (low == null || high == null || low.compareTo(high) > 0) {
+            throw new IllegalArgumentException("Invalid interval [" + low + ", " + high + "]");
+        }
+        this.low = low;
+        this.high = high;
+        this.value = value;
+    }
+
+    public K getLow() {
+        return low;
+    }
+
+    public K getHigh() {
+        return high;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Checks if this interval shares at least one point with [low, high].
+     *
+     * @param low  the lower endpoint, inclusive
+     * @param high the upper endpoint, inclusive
+     * @return true if the intervals overlap, false otherwise
+     */
+    public boolean overlaps(K low, K high) {
+        return this.low.compareTo(high) <= 0 && low.compareTo(this.high) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + low + ", " + high + "]=" + value;
+    }
+}
@@ -8,9 +8,12 @@ package com.jangelmm.dataforge.tree;
 public class Node<T> {
     private T data;
     private Node<T> left, right;
+    private int priority;
+    private int size;
 
     /**
-     * Constructs a new Node with the given data and child nodes.
+     * Constructs a new Node with the given data and child nodes. The subtree size is
+     * computed from the sizes of the children.
      *
      * @param data the data to be stored in the node
      * @param left the left child node
@@ -20,6 +23,7 @@ public class Node<T> {
         this.data = data;
         this.left = left;
         this.right = right;
+        this.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
     }
 
     /**
@@ -75,4 +79,40 @@ public class Node<T> {
     public void setRight(Node<T> right) {
         this.right = right;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the heap priority of the node, used by treap balancing.
+     *
+     * @return the priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the heap priority of the node, used by treap balancing.
+     *
+     * @param priority the priority to set
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the number of nodes in the subtree rooted at this node.
+     *
+     * @return the subtree size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of nodes in the subtree rooted at this node.
+     *
+     * @param size the subtree size to set
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jangelmm.dataforge.tree;
+
+/**
+ * The orders in which the nodes of a binary tree can be visited.
+ */
+public enum TraversalOrder {
+    /**
+     * Node, then left subtree, then right subtree.
+     */
+    PRE_ORDER,
+    /**
+     * Left subtree, then node, then right subtree: ascending order in a search tree.
+     */
+    IN_ORDER,
+    /**
+     * Left subtree, then right subtree, then node.
+     */
+    POST_ORDER
+}
@@ -0,0 +1,121 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A fork-join task that folds the elements of a binary tree in order, forking subtrees as
+ * separate tasks until they weigh no more than a threshold.
+ * <p>
+ * The task walks down the heavier child in a loop and forks only the lighter one, so the
+ * nesting of tasks stays logarithmic and a degenerate tree cannot overflow the stack; it is
+ * merely folded sequentially. The combiner must be associative and the identity neutral.
+ *
+ * @param <N> the type of the tree nodes
+ * @param <E> the type of the elements produced from each node
+ * @param <R> the type of the result
+ */
+final class TreeFoldTask<N, E, R> extends RecursiveTask<R> {
+    private static final long serialVersionUID = 1L;
+
+    private final N root;
+    private final Shape<N, E> shape;
+    private final R identity;
+    private final BiFunction<R, ? super E, R> accumulator;
+    private final BinaryOperator<R> combiner;
+
+    TreeFoldTask(N root, Shape<N, E> shape, R identity, BiFunction<R, ? super E, R> accumulator,
+                 BinaryOperator<R> combiner) {
+        this.root = root;
+        this.shape = shape;
+        this.identity = identity;
+        this.accumulator = accumulator;
+        this.combiner = combiner;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected R compute() {
+        List<Object> before = new ArrayList<>(); // Forked tasks and nodes that precede the rest
+        List<Object> after = new ArrayList<>();  // Forked tasks and nodes that follow it, reversed
+        N node = root;
+        while (node != null && shape.weight(node) > shape.threshold) {
+            N left = shape.left.apply(node);
+            N right = shape.right.apply(node);
+            if (shape.weight(left) >= shape.weight(right)) {
+                if (right != null) {
+                    after.add(fork(right));
+                }
+                after.add(node);
+                node = left;
+            } else {
+                if (left != null) {
+                    before.add(fork(left));
+                }
+                before.add(node);
+                node = right;
+            }
+        }
+        R result = identity;
+        for (Object piece : before) {
+            result = merge(result, piece);
+        }
+        Iterator<E> iterator = new TreeIterator<>(node, TraversalOrder.IN_ORDER, shape.left, shape.right, shape.element);
+        while (iterator.hasNext()) {
+            result = accumulator.apply(result, iterator.next());
+        }
+        for (int i = after.size() - 1; i >= 0; i--) {
+            result = merge(result, after.get(i));
+        }
+        return result;
+    }
+
+    private TreeFoldTask<N, E, R> fork(N subtree) {
+        TreeFoldTask<N, E, R> task = new TreeFoldTask<>(subtree, shape, identity, accumulator, combiner);
+        task.fork();
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private R merge(R result, Object piece) {
+        if (piece instanceof TreeFoldTask) {
+            return combiner.apply(result, ((TreeFoldTask<N, E, R>) piece).join());
+        }
+        return accumulator.apply(result, shape.element.apply((N) piece));
+    }
+
+    /**
+     * Describes how to walk a kind of tree: its child accessors, the element of a node, and a
+     * weight, such as the subtree size or height, that decides when to stop forking.
+     *
+     * @param <N> the type of the tree nodes
+     * @param <E> the type of the elements produced from each node
+     */
+    static final class Shape<N, E> {
+        final UnaryOperator<N> left;
+        final UnaryOperator<N> right;
+        final Function<? super N, ? extends E> element;
+        final ToIntFunction<? super N> weigher;
+        final int threshold;
+
+        Shape(UnaryOperator<N> left, UnaryOperator<N> right, Function<? super N, ? extends E> element,
+              ToIntFunction<? super N> weigher, int threshold) {
+            this.left = left;
+            this.right = right;
+            this.element = element;
+            this.weigher = weigher;
+            this.threshold = threshold;
+        }
+
+        int weight(N node) {
+            return node == null ? 0 : weigher.applyAsInt(node);
+        }
+    }
+}
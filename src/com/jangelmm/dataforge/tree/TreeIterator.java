@@ -0,0 +1,138 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * An iterator over any binary tree in a {@link TraversalOrder}. It keeps the pending nodes on
+ * an explicit array stack, so it never recurses, allocates nothing per element and leaves the
+ * tree untouched. The tree must not be modified while it is being iterated.
+ *
+ * @param <N> the type of the tree nodes
+ * @param <E> the type of the elements produced from each node
+ */
+final class TreeIterator<N, E> implements Iterator<E> {
+    private final TraversalOrder order;
+    private final UnaryOperator<N> left;
+    private final UnaryOperator<N> right;
+    private final Function<? super N, ? extends E> element;
+    private Object[] stack;
+    private int depth;
+    private N current;
+    private N lastVisited;
+
+    /**
+     * Constructs an iterator over the subtree rooted at a node.
+     *
+     * @param root    the root of the subtree, or null for an empty tree
+     * @param order   the traversal order
+     * @param left    returns the left child of a node
+     * @param right   returns the right child of a node
+     * @param element returns the element produced for a node
+     */
+    TreeIterator(N root, TraversalOrder order, UnaryOperator<N> left, UnaryOperator<N> right,
+                 Function<? super N, ? extends E> element) {
+        this.order = order;
+        this.left = left;
+        this.right = right;
+        this.element = element;
+        this.stack = new Object[16];
+        switch (order) {
+            case PRE_ORDER:
+                if (root != null) {
+                    push(root);
+                }
+                break;
+            case IN_ORDER:
+                pushLeftPath(root);
+                break;
+            default:
+                current = root;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return depth > 0 || current != null;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        N node;
+        switch (order) {
+            case PRE_ORDER:
+                node = pop();
+                N rightChild = right.apply(node);
+                if (rightChild != null) {
+                    push(rightChild);
+                }
+                N leftChild = left.apply(node);
+                if (leftChild != null) {
+                    push(leftChild);
+                }
+                break;
+            case IN_ORDER:
+                node = pop();
+                pushLeftPath(right.apply(node));
+                break;
+            default:
+                node = nextPostOrder();
+        }
+        return element.apply(node);
+    }
+
+    /**
+     * Descends to the next node whose subtrees were both visited.
+     */
+    private N nextPostOrder() {
+        while (true) {
+            if (current != null) {
+                push(current);
+                current = left.apply(current);
+            } else {
+                N top = peek();
+                N rightChild = right.apply(top);
+                if (rightChild != null && rightChild != lastVisited) {
+                    current = rightChild;
+                } else {
+                    depth--;
+                    stack[depth] = null;
+                    lastVisited = top;
+                    return top;
+                }
+            }
+        }
+    }
+
+    private void pushLeftPath(N node) {
+        while (node != null) {
+            push(node);
+            node = left.apply(node);
+        }
+    }
+
+    private void push(N node) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private N pop() {
+        N node = (N) stack[--depth];
+        stack[depth] = null;
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private N peek() {
+        return (N) stack[depth - 1];
+    }
+}
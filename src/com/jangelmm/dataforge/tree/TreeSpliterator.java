@@ -0,0 +1,132 @@
+package com.jangelmm.dataforge.tree;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An in-order spliterator over a binary tree that splits along the tree structure, so
+ * parallel streams get balanced halves without copying.
+ * <p>
+ * Its state is an optional single node followed by a subtree. Splitting hands the single
+ * node and the left subtree to the new spliterator and keeps the root of the subtree, as the
+ * new single node, and its right subtree. Once traversal starts it no longer splits.
+ * Sizes are exact when the tree stores subtree sizes and estimated by halving otherwise.
+ *
+ * @param <N> the type of the tree nodes
+ * @param <E> the type of the elements produced from each node
+ */
+final class TreeSpliterator<N, E> implements Spliterator<E> {
+    private final TreeFoldTask.Shape<N, E> shape;
+    private final boolean exactSizes;
+    private final int extraCharacteristics;
+    private N single;
+    private N subtree;
+    private long estimate;
+    private Iterator<E> iterator;
+
+    /**
+     * Constructs a spliterator over a whole tree.
+     *
+     * @param root                 the root of the tree, or null for an empty tree
+     * @param shape                how to walk the tree; with exact sizes its weigher must
+     *                             return subtree sizes
+     * @param exactSizes           whether the weigher returns exact subtree sizes
+     * @param size                 the number of nodes, or an estimate
+     * @param extraCharacteristics characteristics to report besides ORDERED, DISTINCT and NONNULL
+     */
+    TreeSpliterator(N root, TreeFoldTask.Shape<N, E> shape, boolean exactSizes, long size, int extraCharacteristics) {
+        this(null, root, shape, exactSizes, size, extraCharacteristics);
+    }
+
+    private TreeSpliterator(N single, N subtree, TreeFoldTask.Shape<N, E> shape, boolean exactSizes, long estimate,
+                            int extraCharacteristics) {
+        this.single = single;
+        this.subtree = subtree;
+        this.shape = shape;
+        this.exactSizes = exactSizes;
+        this.estimate = estimate;
+        this.extraCharacteristics = extraCharacteristics;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (single != null) {
+            N node = single;
+            single = null;
+            estimate--;
+            action.accept(shape.element.apply(node));
+            return true;
+        }
+        startTraversal();
+        if (iterator.hasNext()) {
+            estimate--;
+            action.accept(iterator.next());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        if (single != null) {
+            action.accept(shape.element.apply(single));
+            single = null;
+        }
+        startTraversal();
+        while (iterator.hasNext()) {
+            action.accept(iterator.next());
+        }
+        estimate = 0;
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        if (iterator != null || subtree == null) {
+            return null;
+        }
+        N left = shape.left.apply(subtree);
+        if (single == null && left == null) {
+            return null;
+        }
+        long prefixSize;
+        if (exactSizes) {
+            prefixSize = (single == null ? 0 : 1) + shape.weight(left);
+        } else {
+            prefixSize = estimate >>> 1;
+        }
+        TreeSpliterator<N, E> prefix = new TreeSpliterator<>(single, left, shape, exactSizes, prefixSize,
+                extraCharacteristics);
+        single = subtree;
+        subtree = shape.right.apply(subtree);
+        estimate -= prefixSize;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max(estimate, 0);
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = ORDERED | DISTINCT | NONNULL | extraCharacteristics;
+        return exactSizes ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+
+    @Override
+    public Comparator<? super E> getComparator() {
+        if (hasCharacteristics(SORTED)) {
+            return null; // Natural order
+        }
+        throw new IllegalStateException();
+    }
+
+    private void startTraversal() {
+        if (iterator == null) {
+            iterator = new TreeIterator<>(subtree, TraversalOrder.IN_ORDER, shape.left, shape.right, shape.element);
+            subtree = null;
+        }
+    }
+}